@@ -0,0 +1,106 @@
+package plc.project;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * A {@link LexerListener} emitting JDK Flight Recorder events: a {@code
+ * plc.project.Lex} event per call to {@link Lexer#lex()}, and a {@code
+ * plc.project.LongToken} event for each token at least {@code longToken}
+ * chars long (such as huge string literals).
+ *
+ * This is the only class using {@code jdk.jfr}, which needs a JDK with Flight
+ * Recorder (8u272 or later), and is only loaded if a listener is created. It
+ * lives in its own source set so the rest of the library can be compiled with
+ * {@code --release 8}, which doesn't include {@code jdk.jfr}, and is packaged
+ * into the same jar. Events are cheap to create while recording is off, and
+ * are only filled in and committed if enabled.
+ */
+public final class FlightRecorderListener implements LexerListener {
+
+    private final int longToken;
+
+    public FlightRecorderListener() {
+        this(1 << 16);
+    }
+
+    public FlightRecorderListener(int longToken) {
+        this.longToken = longToken;
+    }
+
+    @Override
+    public void onToken(Token.Type type, int index, int length) {
+        if (length >= longToken) {
+            LongTokenEvent event = new LongTokenEvent();
+            if (event.isEnabled()) {
+                event.type = type.name();
+                event.index = index;
+                event.length = length;
+                event.commit();
+            }
+        }
+    }
+
+    @Override
+    public void onLex(Lexer.Engine engine, int chars, int tokens, long peeks, long matches, long nanos) {
+        LexEvent event = new LexEvent();
+        if (event.isEnabled()) {
+            event.engine = engine.name();
+            event.chars = chars;
+            event.tokens = tokens;
+            event.peeks = peeks;
+            event.matches = matches;
+            event.time = nanos;
+            event.commit();
+        }
+    }
+
+    @Name("plc.project.Lex")
+    @Label("Lex")
+    @Category("Lexer")
+    @Description("A call to Lexer.lex()")
+    static final class LexEvent extends Event {
+
+        @Label("Engine")
+        String engine;
+
+        @Label("Chars")
+        int chars;
+
+        @Label("Tokens")
+        int tokens;
+
+        @Label("Peeks")
+        long peeks;
+
+        @Label("Matches")
+        long matches;
+
+        @Label("Lex Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long time;
+
+    }
+
+    @Name("plc.project.LongToken")
+    @Label("Long Token")
+    @Category("Lexer")
+    @Description("A token over the listener's length threshold")
+    static final class LongTokenEvent extends Event {
+
+        @Label("Type")
+        String type;
+
+        @Label("Index")
+        int index;
+
+        @Label("Length")
+        int length;
+
+    }
+
+}
@@ -0,0 +1,36 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lexing short expressions with a new lexer each time against reusing a
+ * {@link BatchLexer}. The gc profiler shows the difference in allocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BatchBenchmark {
+
+    @Param({"x", "LET x = 5;", "IF (name != 3.14 && flag == 'c') {"})
+    public String input;
+
+    @Benchmark
+    public List<Token> newLexer() {
+        return new Lexer(input, Lexer.Engine.TABLE).lex();
+    }
+
+    @Benchmark
+    public int batchLexer() {
+        return BatchLexer.local().lex(input).size();
+    }
+
+}
@@ -0,0 +1,153 @@
+package plc.project;
+
+import java.util.Random;
+
+/**
+ * Generates benchmark inputs which lex without errors, each weighted towards
+ * one kind of token. Inputs are generated from a fixed seed so every run lexes
+ * the same text.
+ */
+public enum Corpus {
+
+    IDENTIFIERS {
+        @Override
+        void append(StringBuilder builder, Random random) {
+            builder.append(identifier(random)).append(random.nextInt(8) == 0 ? '\n' : ' ');
+        }
+    },
+    NUMBERS {
+        @Override
+        void append(StringBuilder builder, Random random) {
+            builder.append(number(random)).append(random.nextInt(8) == 0 ? '\n' : ' ');
+        }
+    },
+    STRINGS {
+        @Override
+        void append(StringBuilder builder, Random random) {
+            builder.append('"');
+            int length = random.nextInt(40);
+            for (int i = 0; i < length; i++) {
+                int kind = random.nextInt(10);
+                if (kind == 0) {
+                    builder.append('\\').append("bnrt".charAt(random.nextInt(4)));
+                } else if (kind == 1) {
+                    builder.append(' ');
+                } else {
+                    builder.append((char) ('a' + random.nextInt(26)));
+                }
+            }
+            builder.append("\" ");
+            if (random.nextInt(4) == 0) {
+                builder.append('\'').append(random.nextBoolean() ? "\\n" : "c").append("'\n");
+            }
+        }
+    },
+    OPERATORS {
+        @Override
+        void append(StringBuilder builder, Random random) {
+            builder.append(OPERATOR[random.nextInt(OPERATOR.length)]).append(random.nextInt(16) == 0 ? '\n' : ' ');
+        }
+    },
+    MIXED {
+        @Override
+        void append(StringBuilder builder, Random random) {
+            switch (random.nextInt(4)) {
+                case 0:
+                    builder.append("LET ").append(identifier(random)).append(" = ").append(number(random)).append(";\n");
+                    break;
+                case 1:
+                    builder.append("print(\"Hello, ").append(identifier(random)).append("\\n\");\n");
+                    break;
+                case 2:
+                    builder.append("IF (").append(identifier(random)).append(" != ").append(number(random))
+                            .append(" && ").append(identifier(random)).append(" == 'c') {\n");
+                    break;
+                default:
+                    builder.append("    ").append(identifier(random)).append(" = ").append(identifier(random))
+                            .append(" + ").append(number(random)).append(";\n}\n");
+            }
+        }
+    };
+
+    private static final String[] OPERATOR = {"(", ")", "{", "}", ";", "+", "-", "*", "/", "<", ">", "!=", "==", "&&", "||", "!", "="};
+
+    /**
+     * Returns an input of exactly the given number of chars, padding the end
+     * with spaces rather than cutting a token in half.
+     */
+    public String generate(int size) {
+        Random random = new Random(size * 31L + ordinal());
+        StringBuilder builder = new StringBuilder(size);
+        StringBuilder next = new StringBuilder();
+        while (true) {
+            next.setLength(0);
+            append(next, random);
+            if (builder.length() + next.length() > size) {
+                break;
+            }
+            builder.append(next);
+        }
+        while (builder.length() < size) {
+            builder.append(' ');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Parses sizes such as {@code 1KB}, {@code 1MB} and {@code 100MB}.
+     */
+    public static int size(String size) {
+        if (size.endsWith("MB")) {
+            return Integer.parseInt(size.substring(0, size.length() - 2)) << 20;
+        } else if (size.endsWith("KB")) {
+            return Integer.parseInt(size.substring(0, size.length() - 2)) << 10;
+        }
+        return Integer.parseInt(size);
+    }
+
+    abstract void append(StringBuilder builder, Random random);
+
+    private static String identifier(Random random) {
+        StringBuilder builder = new StringBuilder();
+        int length = 1 + random.nextInt(12);
+        for (int i = 0; i < length; i++) {
+            int kind = random.nextInt(8);
+            if (i > 0 && kind == 0) {
+                builder.append(random.nextBoolean() ? '_' : '-');
+            } else if (i > 0 && kind == 1) {
+                builder.append((char) ('0' + random.nextInt(10)));
+            } else {
+                builder.append((char) ((random.nextBoolean() ? 'a' : 'A') + random.nextInt(26)));
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Integer parts only use 1-9, since lexNumber stops at a 0 after the first
+     * digit and a following digit would then be a leading zero.
+     */
+    private static String number(Random random) {
+        StringBuilder builder = new StringBuilder();
+        if (random.nextInt(4) == 0) {
+            builder.append('-');
+        }
+        if (random.nextInt(10) == 0) {
+            builder.append('0');
+        } else {
+            int length = 1 + random.nextInt(8);
+            for (int i = 0; i < length; i++) {
+                builder.append((char) ('1' + random.nextInt(9)));
+            }
+        }
+        if (random.nextInt(3) == 0) {
+            builder.append('.');
+            int length = 1 + random.nextInt(6);
+            for (int i = 0; i < length; i++) {
+                builder.append((char) ('0' + random.nextInt(10)));
+            }
+        }
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,56 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link Lexer#lex()} over each corpus, size and engine. The
+ * {@link Chars} counter reports chars lexed per second alongside ops/s, and
+ * the gc profiler configured in build.gradle adds the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class LexerBenchmark {
+
+    @Param({"IDENTIFIERS", "NUMBERS", "STRINGS", "OPERATORS", "MIXED"})
+    public Corpus corpus;
+
+    @Param({"1KB", "1MB", "100MB"})
+    public String size;
+
+    @Param({"PATTERN", "TABLE"})
+    public Lexer.Engine engine;
+
+    private String input;
+
+    @Setup
+    public void setup() {
+        input = corpus.generate(Corpus.size(size));
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Chars {
+
+        public long chars;
+
+    }
+
+    @Benchmark
+    public List<Token> lex(Chars chars) {
+        chars.chars += input.length();
+        return new Lexer(input, engine).lex();
+    }
+
+}
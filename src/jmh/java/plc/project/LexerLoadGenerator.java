@@ -0,0 +1,82 @@
+package plc.project;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs a {@link LexerServer} on loopback and floods it with small requests
+ * from many concurrent clients, printing throughput, latency percentiles and
+ * how many requests were rejected.
+ *
+ * Arguments are the number of clients, requests per client and the server's
+ * in-flight limit, defaulting to 10000, 10 and 256. Like the benchmarks, this
+ * is a tool for measuring the library rather than part of it.
+ */
+public final class LexerLoadGenerator {
+
+    private static final String[] REQUESTS = {
+            "LET x = 5;",
+            "print(\"Hello, World!\");",
+            "while(x < 5) {x = x + 1;}",
+            "DEF f(a, b) DO RETURN a * b + 1.5; END",
+            "IF x != y && z <= 'c' THEN y = -9; END",
+    };
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int inFlight = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+        try (LexerServer server = new LexerServer(inFlight, 1 << 16)) {
+            int port = server.listen(0);
+            long[] latencies = new long[clients * requests];
+            AtomicLong completed = new AtomicLong();
+            AtomicLong rejected = new AtomicLong();
+            AtomicLong failed = new AtomicLong();
+            CountDownLatch done = new CountDownLatch(clients);
+            ExecutorService executor = LexerServer.threads();
+            long begin = System.nanoTime();
+            for (int c = 0; c < clients; c++) {
+                int client = c;
+                executor.execute(() -> {
+                    try (LexerClient connection = new LexerClient(port)) {
+                        for (int r = 0; r < requests; r++) {
+                            long start = System.nanoTime();
+                            try {
+                                connection.lex(REQUESTS[(client + r) % REQUESTS.length]);
+                                completed.incrementAndGet();
+                            } catch (RejectedExecutionException e) {
+                                rejected.incrementAndGet();
+                            }
+                            latencies[client * requests + r] = System.nanoTime() - start;
+                        }
+                    } catch (IOException e) {
+                        failed.incrementAndGet();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            done.await();
+            long elapsed = System.nanoTime() - begin;
+            executor.shutdown();
+            Arrays.sort(latencies);
+            System.out.printf("%d clients x %d requests in %.1f ms (%.0f requests/s)%n", clients, requests,
+                    elapsed / 1e6, completed.get() * 1e9 / elapsed);
+            System.out.printf("completed %d, rejected %d, failed connections %d%n",
+                    completed.get(), rejected.get(), failed.get());
+            System.out.printf("latency p50 %.1f us, p99 %.1f us, max %.1f us%n", percentile(latencies, 0.50) / 1e3,
+                    percentile(latencies, 0.99) / 1e3, latencies[latencies.length - 1] / 1e3);
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * percentile))];
+    }
+
+}
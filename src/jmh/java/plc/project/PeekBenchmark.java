@@ -0,0 +1,55 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per character of {@link Lexer#peek(String...)} and {@link
+ * Lexer#match(String...)}, the helpers every pattern engine path goes through.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PeekBenchmark {
+
+    private static final int LENGTH = 1024;
+
+    private String input;
+    private Lexer lexer;
+
+    @Setup
+    public void setup() {
+        input = Corpus.IDENTIFIERS.generate(LENGTH).replace(' ', 'a').replace('\n', 'b');
+        lexer = new Lexer(input);
+    }
+
+    @Benchmark
+    public boolean peek() {
+        return lexer.peek("[A-Za-z]");
+    }
+
+    @Benchmark
+    public boolean peekMultiple() {
+        return lexer.peek("@?[A-Za-z]", "@?[A-Za-z0-9_-]*");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LENGTH)
+    public int match() {
+        Lexer lexer = new Lexer(input);
+        int count = 0;
+        while (lexer.match("@?[A-Za-z0-9_-]*")) {
+            count++;
+        }
+        return count;
+    }
+
+}
@@ -0,0 +1,31 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a single {@link Lexer#lexToken()} call on each kind of token,
+ * including creating the lexer for it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TokenBenchmark {
+
+    @Param({"getName", "thelegend27", "12345", "-123.456", "'c'", "'\\n'", "\"Hello, World!\"",
+            "\"Hello,\\nWorld\"", "(", "!=", "&&"})
+    public String input;
+
+    @Benchmark
+    public Token lexToken() {
+        return new Lexer(input).lexToken();
+    }
+
+}
@@ -0,0 +1,38 @@
+package plc.project;
+
+/**
+ * Lexes many small inputs one after another while reusing the same char
+ * stream, table lexer and {@link TokenBuffer}, so once the buffers have grown
+ * to fit the inputs lexing allocates nothing but the buffer's growth.
+ *
+ * A batch lexer is not thread safe. Multithreaded callers should each use
+ * their own, such as the one from {@link #local()}.
+ */
+public final class BatchLexer {
+
+    private static final ThreadLocal<BatchLexer> LOCAL = ThreadLocal.withInitial(BatchLexer::new);
+
+    private final Lexer.CharStream chars = new Lexer.CharStream("");
+    private final TableLexer lexer = new TableLexer(chars);
+    private final TokenBuffer tokens = new TokenBuffer("", 64);
+
+    /**
+     * Returns the batch lexer for the current thread.
+     */
+    public static BatchLexer local() {
+        return LOCAL.get();
+    }
+
+    /**
+     * Lexes the input into this lexer's token buffer. The same buffer is
+     * returned every time and is cleared by the next call, so tokens have to
+     * be used (or copied) before lexing the next input.
+     */
+    public TokenBuffer lex(String input) {
+        chars.reset(input);
+        tokens.clear(input);
+        tokens.lex(lexer);
+        return tokens;
+    }
+
+}
@@ -0,0 +1,80 @@
+package plc.project;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.regex.Pattern;
+
+/**
+ * A regex pattern compiled down to a single character predicate, which is how
+ * {@link Lexer#peek(String...)} uses its patterns.
+ *
+ * Matching is answered by a bitset over the char value. The ASCII range is
+ * computed up front when the pattern is compiled, and every other 256 char
+ * page is filled in lazily the first time a char from it is tested, so after
+ * warm up a call to {@link #matches(char)} is just a couple of array reads.
+ * The result is always the same as {@code String.valueOf(c).matches(regex)}.
+ */
+final class CharPattern {
+
+    private static final ConcurrentHashMap<String, CharPattern> CACHE = new ConcurrentHashMap<>();
+
+    private final String regex;
+    private final Pattern pattern;
+    private final long[] ascii = new long[2];
+    private final AtomicReferenceArray<long[]> pages = new AtomicReferenceArray<>(256);
+
+    private CharPattern(String regex) {
+        this.regex = regex;
+        this.pattern = Pattern.compile(regex);
+        for (char c = 0; c < 128; c++) {
+            if (test(c)) {
+                ascii[c >>> 6] |= 1L << c;
+            }
+        }
+    }
+
+    /**
+     * Returns the compiled form of the given regex, compiling it the first
+     * time it is seen. Compiled patterns are shared and safe to use from any
+     * thread.
+     */
+    static CharPattern compile(String regex) {
+        CharPattern compiled = CACHE.get(regex);
+        if (compiled == null) {
+            compiled = CACHE.computeIfAbsent(regex, CharPattern::new);
+        }
+        return compiled;
+    }
+
+    boolean matches(char c) {
+        if (c < 128) {
+            return (ascii[c >>> 6] & (1L << c)) != 0;
+        }
+        long[] page = pages.get(c >>> 8);
+        if (page == null) {
+            page = page(c >>> 8);
+        }
+        return (page[(c & 0xFF) >>> 6] & (1L << c)) != 0;
+    }
+
+    private long[] page(int high) {
+        long[] page = new long[4];
+        for (int low = 0; low < 256; low++) {
+            if (test((char) (high << 8 | low))) {
+                page[low >>> 6] |= 1L << low;
+            }
+        }
+        pages.compareAndSet(high, null, page);
+        return pages.get(high);
+    }
+
+    private boolean test(char c) {
+        return pattern.matcher(String.valueOf(c)).matches();
+    }
+
+    @Override
+    public String toString() {
+        return regex;
+    }
+
+}
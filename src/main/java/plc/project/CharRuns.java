@@ -0,0 +1,176 @@
+package plc.project;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteOrder;
+
+/**
+ * Skips runs of chars which every lexer state treats the same way: whitespace
+ * between tokens, the rest of an identifier and the plain chars of a string
+ * body, so both engines can jump over them instead of going char by char.
+ *
+ * String bodies and spaces are scanned with SWAR (four chars read as one
+ * {@code long} through {@code sun.misc.Unsafe}), checking 16 chars per step
+ * for a string body. A SWAR scan only has to stop at or before the first
+ * char which needs handling, since the caller then handles that char the
+ * usual way, so every result matches going char by char. Where Unsafe isn't
+ * available (or the platform is big endian) the plain loops are used.
+ */
+final class CharRuns {
+
+    private static final long ONES = 0x0001000100010001L;
+    private static final long HIGHS = 0x8000800080008000L;
+    private static final long SPACES = ' ' * ONES;
+    private static final long QUOTES = '"' * ONES;
+    private static final long BACKSLASHES = '\\' * ONES;
+    private static final boolean[] IDENTIFIER = new boolean[128];
+    private static final MethodHandle GET_LONG;
+    private static final long BASE;
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            IDENTIFIER[c] = true;
+            IDENTIFIER[Character.toUpperCase(c)] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            IDENTIFIER[c] = true;
+        }
+        IDENTIFIER['_'] = true;
+        IDENTIFIER['-'] = true;
+        IDENTIFIER['@'] = true;
+        MethodHandle getLong = null;
+        long base = 0;
+        if (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN) {
+            try {
+                Class<?> type = Class.forName("sun.misc.Unsafe");
+                Field field = type.getDeclaredField("theUnsafe");
+                field.setAccessible(true);
+                Object unsafe = field.get(null);
+                if ((int) type.getMethod("arrayIndexScale", Class.class).invoke(unsafe, char[].class) == 2) {
+                    base = (int) type.getMethod("arrayBaseOffset", Class.class).invoke(unsafe, char[].class);
+                    getLong = MethodHandles.lookup()
+                            .findVirtual(type, "getLong", MethodType.methodType(long.class, Object.class, long.class))
+                            .bindTo(unsafe);
+                }
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                getLong = null;
+            }
+        }
+        GET_LONG = getLong;
+        BASE = base;
+    }
+
+    private CharRuns() {}
+
+    /**
+     * Returns the index of the first char at or after {@code from} which
+     * might end a string body (a quote, backslash or control char), or the
+     * limit if there isn't one.
+     */
+    static int stringBody(char[] buffer, int from, int limit) {
+        int i = from;
+        if (GET_LONG != null) {
+            for (; i + 16 <= limit; i += 16) {
+                long first = stops(word(buffer, i));
+                long second = stops(word(buffer, i + 4));
+                long third = stops(word(buffer, i + 8));
+                long fourth = stops(word(buffer, i + 12));
+                if ((first | second | third | fourth) != 0) {
+                    if (first != 0) {
+                        return i + lane(first);
+                    } else if (second != 0) {
+                        return i + 4 + lane(second);
+                    } else if (third != 0) {
+                        return i + 8 + lane(third);
+                    }
+                    return i + 12 + lane(fourth);
+                }
+            }
+            for (; i + 4 <= limit; i += 4) {
+                long stops = stops(word(buffer, i));
+                if (stops != 0) {
+                    return i + lane(stops);
+                }
+            }
+        }
+        return scalarStringBody(buffer, i, limit);
+    }
+
+    static int scalarStringBody(char[] buffer, int from, int limit) {
+        for (int i = from; i < limit; i++) {
+            char c = buffer[i];
+            if (c < ' ' || c == '"' || c == '\\') {
+                return i;
+            }
+        }
+        return limit;
+    }
+
+    /**
+     * Returns the index of the first char at or after {@code from} which
+     * isn't whitespace, or the limit. Blocks of four spaces (indentation)
+     * are skipped a word at a time.
+     */
+    static int whitespace(char[] buffer, int from, int limit) {
+        int i = from;
+        while (true) {
+            if (GET_LONG != null) {
+                while (i + 4 <= limit && word(buffer, i) == SPACES) {
+                    i += 4;
+                }
+            }
+            if (i == limit) {
+                return i;
+            }
+            char c = buffer[i];
+            if (c != ' ' && c != '\b' && c != '\n' && c != '\r' && c != '\t') {
+                return i;
+            }
+            i++;
+        }
+    }
+
+    /**
+     * Returns the index of the first char at or after {@code from} which
+     * can't continue an identifier, or the limit.
+     */
+    static int identifier(char[] buffer, int from, int limit) {
+        int i = from;
+        while (i < limit) {
+            char c = buffer[i];
+            if (c >= 128 || !IDENTIFIER[c]) {
+                return i;
+            }
+            i++;
+        }
+        return limit;
+    }
+
+    private static long word(char[] buffer, int index) {
+        try {
+            return (long) GET_LONG.invokeExact((Object) buffer, BASE + ((long) index << 1));
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Sets the high bit of the lowest lane which is a control char, quote or
+     * backslash. Lanes above it may also be set (from the borrow), but never
+     * lanes below, so only the lowest is used.
+     */
+    private static long stops(long word) {
+        return below(word, ' ') | below(word ^ QUOTES, 1) | below(word ^ BACKSLASHES, 1);
+    }
+
+    private static long below(long word, int value) {
+        return (word - value * ONES) & ~word & HIGHS;
+    }
+
+    private static int lane(long stops) {
+        return Long.numberOfTrailingZeros(stops) >>> 4;
+    }
+
+}
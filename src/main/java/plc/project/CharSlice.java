@@ -0,0 +1,74 @@
+package plc.project;
+
+/**
+ * A read-only view of a range of a String, so part of an input or literal can
+ * be handed out as a {@link CharSequence} without copying its chars. Slices
+ * are equal to other slices with the same chars (with the same hash code as
+ * the equal String), but never to a String itself, which wouldn't be equal
+ * back.
+ */
+final class CharSlice implements CharSequence {
+
+    private final String source;
+    private final int offset;
+    private final int length;
+
+    CharSlice(String source) {
+        this(source, 0, source.length());
+    }
+
+    CharSlice(String source, int start, int end) {
+        if (start < 0 || start > end || end > source.length()) {
+            throw new IndexOutOfBoundsException("Invalid range [" + start + ", " + end + ") of length "
+                    + source.length() + ".");
+        }
+        this.source = source;
+        this.offset = start;
+        this.length = end - start;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + length + ".");
+        }
+        return source.charAt(offset + index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || start > end || end > length) {
+            throw new IndexOutOfBoundsException("Invalid range [" + start + ", " + end + ") of length " + length + ".");
+        }
+        return new CharSlice(source, offset + start, offset + end);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof CharSlice) || ((CharSlice) obj).length != length) {
+            return false;
+        }
+        CharSlice other = (CharSlice) obj;
+        return source.regionMatches(offset, other.source, other.offset, length);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + source.charAt(offset + i);
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return source.substring(offset, offset + length);
+    }
+
+}
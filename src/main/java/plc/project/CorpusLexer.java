@@ -0,0 +1,395 @@
+package plc.project;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Lexes every file under a directory on a {@link ForkJoinPool}, collecting
+ * the result of each file and totals for the whole corpus.
+ *
+ * Files are sorted largest first and each of the pool's threads takes the
+ * next one off the list as it finishes the last, so the big files are started
+ * early instead of one of them being left running alone at the end. Files
+ * over {@link #PARALLEL_SIZE} chars are lexed in chunks on the same pool (see
+ * {@link ParallelLexer}), which threads that have run out of files steal
+ * from. The rest are lexed into a {@link TokenBuffer}.
+ *
+ * Each file's input and tokens are only held while it is lexed, and the
+ * memory they take at once is kept under {@code maxBytes}: a thread waits for
+ * others to finish before reading a file which would go over it (a single
+ * file larger than the limit is read once nothing else is held). A file is
+ * charged for its bytes, the decoded chars and the tokens, estimated from its
+ * size before it is read and corrected to the real sizes once it is lexed.
+ * The limit is shared by every run of the same instance.
+ */
+public final class CorpusLexer {
+
+    public static final int PARALLEL_SIZE = 1 << 20;
+
+    private static final Token.Type[] TYPES = Token.Type.values();
+
+    /**
+     * The bytes a token takes in a {@link TokenBuffer}'s columns, and roughly
+     * as a {@link Token} object with its literal's string in a list.
+     */
+    private static final int COLUMN_BYTES = 1 + 4 + 4;
+    private static final int TOKEN_BYTES = 64;
+
+    private final ForkJoinPool pool;
+    private final long maxBytes;
+    private long held = 0;
+
+    public CorpusLexer() {
+        this(ForkJoinPool.commonPool(), 256L << 20);
+    }
+
+    public CorpusLexer(ForkJoinPool pool, long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("The memory limit must be positive.");
+        }
+        this.pool = pool;
+        this.maxBytes = maxBytes;
+    }
+
+    public Report lex(Path root) throws IOException {
+        return lex(root, "*", null);
+    }
+
+    /**
+     * Lexes the files under the root whose names match the glob (such as
+     * {@code *.plc}), passing each file's tokens to the consumer (if not
+     * null) on the thread which lexed them. The tokens shouldn't be kept
+     * past the call if memory is meant to stay bounded.
+     */
+    public Report lex(Path root, String glob, BiConsumer<Path, List<Token>> consumer) throws IOException {
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        List<FileResult> results = new ArrayList<>();
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                if (attributes.isRegularFile() && matcher.matches(file.getFileName())) {
+                    results.add(new FileResult(file, attributes.size()));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exception) {
+                FileResult result = new FileResult(file, 0);
+                result.error = exception;
+                results.add(result);
+                return FileVisitResult.CONTINUE;
+            }
+
+        });
+        results.sort(Comparator.comparingLong(FileResult::getBytes).reversed());
+        Report report = new Report(results);
+        AtomicInteger next = new AtomicInteger();
+        List<RecursiveAction> workers = new ArrayList<>();
+        for (int i = 0; i < pool.getParallelism(); i++) {
+            workers.add(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    int index;
+                    while ((index = next.getAndIncrement()) < results.size()) {
+                        lex(results.get(index), report, consumer);
+                    }
+                }
+            });
+        }
+        long begin = System.nanoTime();
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                ForkJoinTask.invokeAll(workers);
+            }
+        });
+        report.nanos = System.nanoTime() - begin;
+        results.sort(Comparator.comparing(FileResult::getPath));
+        return report;
+    }
+
+    private void lex(FileResult result, Report report, BiConsumer<Path, List<Token>> consumer) {
+        if (result.error != null) {
+            return;
+        }
+        long begin = System.nanoTime();
+        long charged = footprint(result.bytes, result.bytes, Math.max(16, result.bytes / 4),
+                result.bytes > PARALLEL_SIZE);
+        try {
+            acquire(charged, report);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.error = new InterruptedIOException("Interrupted waiting to read " + result.path + ".");
+            return;
+        }
+        try {
+            String input = new String(Files.readAllBytes(result.path), StandardCharsets.UTF_8);
+            List<Token> tokens = input.length() > PARALLEL_SIZE
+                    ? new ParallelLexer(pool).lex(input)
+                    : Lexer.lexBuffer(input);
+            result.chars = input.length();
+            result.tokens = tokens.size();
+            long footprint = tokens instanceof TokenBuffer
+                    ? footprint(result.bytes, input.length(), ((TokenBuffer) tokens).capacity(), false)
+                    : footprint(result.bytes, input.length(), tokens.size(), true);
+            adjust(footprint - charged, report);
+            charged = footprint;
+            result.heldBytes = footprint;
+            long[] types = new long[TYPES.length];
+            if (tokens instanceof TokenBuffer) {
+                TokenBuffer buffer = (TokenBuffer) tokens;
+                for (int i = 0; i < buffer.size(); i++) {
+                    types[buffer.getType(i).ordinal()]++;
+                }
+            } else {
+                for (Token token : tokens) {
+                    types[token.getType().ordinal()]++;
+                }
+            }
+            for (int i = 0; i < types.length; i++) {
+                report.types[i].add(types[i]);
+            }
+            if (consumer != null) {
+                consumer.accept(result.path, tokens);
+            }
+        } catch (IOException | ParseException e) {
+            result.error = e;
+        } finally {
+            release(charged);
+            result.nanos = System.nanoTime() - begin;
+        }
+    }
+
+    /**
+     * Returns the memory a file takes while it is lexed: its bytes, the chars
+     * decoded from them, and its tokens either as buffer columns or as
+     * objects (which also hold a copy of the chars in their literals).
+     */
+    private static long footprint(long bytes, long chars, long tokens, boolean objects) {
+        return objects
+                ? bytes + 4 * chars + TOKEN_BYTES * tokens
+                : bytes + 2 * chars + COLUMN_BYTES * tokens;
+    }
+
+    /**
+     * Waits until the bytes fit under the limit and charges them. The wait
+     * goes through {@link ForkJoinPool#managedBlock} so the pool can start
+     * another thread in place of the blocked worker, which keeps the chunks of
+     * a file being lexed in parallel running while other workers wait.
+     */
+    private void acquire(long bytes, Report report) throws InterruptedException {
+        ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+
+            private boolean acquired = false;
+
+            @Override
+            public boolean block() throws InterruptedException {
+                synchronized (CorpusLexer.this) {
+                    while (!tryAcquire(bytes, report)) {
+                        CorpusLexer.this.wait();
+                    }
+                }
+                acquired = true;
+                return true;
+            }
+
+            @Override
+            public boolean isReleasable() {
+                return acquired || (acquired = tryAcquire(bytes, report));
+            }
+
+        });
+    }
+
+    private synchronized boolean tryAcquire(long bytes, Report report) {
+        if (held > 0 && held + bytes > maxBytes) {
+            return false;
+        }
+        adjust(bytes, report);
+        return true;
+    }
+
+    /**
+     * Corrects what a file is charged once its real size is known. The
+     * memory is already in use by then, so this never waits.
+     */
+    private synchronized void adjust(long bytes, Report report) {
+        held += bytes;
+        report.peakBytes = Math.max(report.peakBytes, held);
+        if (bytes < 0) {
+            notifyAll();
+        }
+    }
+
+    private synchronized void release(long bytes) {
+        held -= bytes;
+        notifyAll();
+    }
+
+    /**
+     * The outcome of lexing one file. The error is the {@link
+     * ParseException} lexing it threw, or the {@link IOException} if it
+     * couldn't be read.
+     */
+    public static final class FileResult {
+
+        private final Path path;
+        private final long bytes;
+        private int chars;
+        private int tokens;
+        private long heldBytes;
+        private long nanos;
+        private Exception error;
+
+        private FileResult(Path path, long bytes) {
+            this.path = path;
+            this.bytes = bytes;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public int getChars() {
+            return chars;
+        }
+
+        public int getTokens() {
+            return tokens;
+        }
+
+        /**
+         * Returns the memory the file's input and tokens took while it was
+         * lexed, as charged against the limit.
+         */
+        public long getHeldBytes() {
+            return heldBytes;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        public Exception getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            return path + ": " + (error != null ? error.getMessage() : tokens + " tokens");
+        }
+
+    }
+
+    /**
+     * The results of every file, sorted by path, and the totals over all of
+     * them. Throughput is measured against the wall clock time of the run.
+     */
+    public static final class Report {
+
+        private final List<FileResult> files;
+        private final LongAdder[] types = new LongAdder[TYPES.length];
+        private long nanos;
+        private long peakBytes;
+
+        private Report(List<FileResult> files) {
+            this.files = files;
+            for (int i = 0; i < types.length; i++) {
+                types[i] = new LongAdder();
+            }
+        }
+
+        public List<FileResult> getFiles() {
+            return Collections.unmodifiableList(files);
+        }
+
+        public List<FileResult> getErrors() {
+            List<FileResult> errors = new ArrayList<>();
+            for (FileResult file : files) {
+                if (file.error != null) {
+                    errors.add(file);
+                }
+            }
+            return errors;
+        }
+
+        public long getBytes() {
+            long bytes = 0;
+            for (FileResult file : files) {
+                bytes += file.bytes;
+            }
+            return bytes;
+        }
+
+        public long getTokens(Token.Type type) {
+            return types[type.ordinal()].sum();
+        }
+
+        public long getTokens() {
+            long sum = 0;
+            for (LongAdder count : types) {
+                sum += count.sum();
+            }
+            return sum;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * Returns the most memory held at once for the files being lexed,
+         * counted the same way as {@link FileResult#getHeldBytes()}.
+         */
+        public long getPeakBytes() {
+            return peakBytes;
+        }
+
+        public double getBytesPerSecond() {
+            return nanos == 0 ? 0 : getBytes() * 1e9 / nanos;
+        }
+
+        public double getTokensPerSecond() {
+            return nanos == 0 ? 0 : getTokens() * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            builder.append(String.format("%d files (%d errors), %d bytes, %d tokens in %.1f ms%n", files.size(),
+                    getErrors().size(), getBytes(), getTokens(), nanos / 1e6));
+            builder.append(String.format("%.1f MB/s, %.0f tokens/s, peak held %d bytes%n",
+                    getBytesPerSecond() / 1e6, getTokensPerSecond(), peakBytes));
+            for (Token.Type type : TYPES) {
+                builder.append(String.format("%s %d%n", type, getTokens(type)));
+            }
+            return builder.toString();
+        }
+
+    }
+
+}
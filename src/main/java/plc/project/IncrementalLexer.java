@@ -0,0 +1,241 @@
+package plc.project;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Relexes a document after an edit by reusing the tokens from before it.
+ *
+ * A token is decided by its own chars plus the chars after it which the
+ * lexer read to end it: one with the default operators, or as many as an
+ * {@link OperatorTable} may back up over (see {@link
+ * OperatorTable#lookahead()}). Every previous token whose lookahead ends
+ * before the edit offset is kept as is, and lexing restarts from the end of
+ * the last of them, with the same operators, symbol table and keyword table
+ * the previous tokens were lexed with. Once a relexed token
+ * starts after the inserted text, at the same place (shifted by the edit) as
+ * a previous token, both lexers are in the start state in front of identical
+ * text, so the remaining previous tokens are reused with shifted indices.
+ * The result is always what lexing the whole edited document would give.
+ *
+ * A relexed token list is a view over the tokens it reuses (see {@link
+ * EditedTokens}), so an edit only costs the tokens actually relexed rather
+ * than copying and shifting every token after it.
+ */
+final class IncrementalLexer {
+
+    private final String input;
+    private final List<Token> previous;
+    private final int offset;
+    private final int inserted;
+    private final int delta;
+    private final OperatorTable operators;
+    private final SymbolTable symbols;
+    private final KeywordTable keywords;
+    private TokenBuffer relexed; // when relexing into a buffer
+    private List<Token> relexedTokens; // when relexing into tokens
+    private int kept;
+    private int resumed;
+
+    private IncrementalLexer(String input, List<Token> previous, int offset, int removed, int inserted,
+                             SymbolTable symbols, OperatorTable operators, KeywordTable keywords) {
+        if (offset < 0 || removed < 0 || inserted < 0 || offset + inserted > input.length()) {
+            throw new IndexOutOfBoundsException("Invalid edit at " + offset + " of length " + inserted
+                    + " in input of length " + input.length() + ".");
+        }
+        this.input = input;
+        this.previous = previous;
+        this.offset = offset;
+        this.inserted = inserted;
+        this.delta = inserted - removed;
+        this.symbols = symbols;
+        this.operators = operators;
+        this.keywords = keywords;
+    }
+
+    static List<Token> relex(String input, List<Token> previous, int offset, int removed, int inserted,
+                             SymbolTable symbols, OperatorTable operators, KeywordTable keywords) {
+        IncrementalLexer lexer = new IncrementalLexer(input, previous, offset, removed, inserted,
+                symbols, operators, keywords);
+        lexer.relexedTokens = new ArrayList<>();
+        lexer.resync();
+        EditedTokens tokens = new EditedTokens();
+        tokens.add(previous, 0, lexer.kept, 0);
+        tokens.add(lexer.relexedTokens, 0, lexer.relexedTokens.size(), 0);
+        tokens.add(previous, lexer.resumed, previous.size(), lexer.delta);
+        return tokens.compact();
+    }
+
+    static TokenBuffer relex(String input, TokenBuffer previous, int offset, int removed, int inserted) {
+        IncrementalLexer lexer = new IncrementalLexer(input, previous, offset, removed, inserted,
+                null, OperatorTable.DEFAULT, null);
+        lexer.relexed = new TokenBuffer(input, 16);
+        lexer.resync();
+        TokenBuffer tokens = new TokenBuffer(input, lexer.kept + lexer.relexed.size() + previous.size() - lexer.resumed);
+        for (int i = 0; i < lexer.kept; i++) {
+            tokens.add(previous.getType(i).ordinal(), previous.getIndex(i), previous.getLength(i));
+        }
+        for (int i = 0; i < lexer.relexed.size(); i++) {
+            tokens.add(lexer.relexed.getType(i).ordinal(), lexer.relexed.getIndex(i), lexer.relexed.getLength(i));
+        }
+        for (int i = lexer.resumed; i < previous.size(); i++) {
+            tokens.add(previous.getType(i).ordinal(), previous.getIndex(i) + lexer.delta, previous.getLength(i));
+        }
+        return tokens;
+    }
+
+    /**
+     * Finds the tokens to keep, relexes from the end of the last one until a
+     * token lines up with a previous one, and records where to resume.
+     */
+    private void resync() {
+        int low = 0;
+        int high = previous.size();
+        int lookahead = operators.lookahead();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (end(middle) + lookahead <= offset) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        kept = low;
+        int restart = kept == 0 ? 0 : end(kept - 1);
+        resumed = previous.size();
+        int next = kept;
+        Lexer.CharStream chars = new Lexer.CharStream(input, restart);
+        chars.symbols = symbols;
+        chars.keywords = keywords;
+        TableLexer lexer = new TableLexer(chars, operators);
+        int type;
+        while ((type = lexer.scan()) >= 0) {
+            int start = lexer.start();
+            if (start >= offset + inserted) {
+                int target = start - delta;
+                while (next < previous.size() && start(next) < target) {
+                    next++;
+                }
+                if (next < previous.size() && start(next) == target) {
+                    resumed = next;
+                    return;
+                }
+            }
+            if (relexedTokens != null) {
+                relexedTokens.add(lexer.token(type));
+            } else {
+                relexed.add(type, start, lexer.end() - start);
+            }
+        }
+    }
+
+    private int start(int index) {
+        if (previous instanceof TokenBuffer) {
+            return ((TokenBuffer) previous).getIndex(index);
+        }
+        return previous.get(index).getIndex();
+    }
+
+    private int end(int index) {
+        if (previous instanceof TokenBuffer) {
+            TokenBuffer tokens = (TokenBuffer) previous;
+            return tokens.getIndex(index) + tokens.getLength(index);
+        }
+        Token token = previous.get(index);
+        return token.getIndex() + token.getLiteral().length();
+    }
+
+    /**
+     * The tokens after an edit as ranges of the token lists they came from,
+     * each with the shift to apply to its indices, which is only applied to
+     * a token when it is read. Ranges taken from an earlier edit are resolved
+     * to the lists that edit was built from, so a chain of edits stays one
+     * flat list of ranges (about two more per edit) rather than views of
+     * views, and once there are {@link #MAX_RANGES} of them the tokens are
+     * copied out to start over from a single range.
+     */
+    static final class EditedTokens extends AbstractList<Token> implements RandomAccess {
+
+        private static final int MAX_RANGES = 256;
+
+        private final List<List<Token>> sources = new ArrayList<>();
+        private int[] froms = new int[4];
+        private int[] deltas = new int[4];
+        private int[] ends = new int[4]; // size of this list up to the end of each range
+        private int ranges = 0;
+
+        /**
+         * Adds the tokens in [from, to) of the source, shifted by delta.
+         */
+        void add(List<Token> source, int from, int to, int delta) {
+            if (from >= to) {
+                return;
+            }
+            if (source instanceof EditedTokens) {
+                EditedTokens edited = (EditedTokens) source;
+                int start = 0;
+                for (int range = 0; range < edited.ranges && start < to; range++) {
+                    int end = edited.ends[range];
+                    int low = Math.max(from, start);
+                    int high = Math.min(to, end);
+                    if (low < high) {
+                        add(edited.sources.get(range), edited.froms[range] + low - start,
+                                edited.froms[range] + high - start, edited.deltas[range] + delta);
+                    }
+                    start = end;
+                }
+                return;
+            }
+            int last = ranges - 1;
+            if (last >= 0 && sources.get(last) == source && deltas[last] == delta
+                    && froms[last] + ends[last] - (last == 0 ? 0 : ends[last - 1]) == from) {
+                ends[last] += to - from;
+                return;
+            }
+            if (ranges == froms.length) {
+                froms = Arrays.copyOf(froms, ranges * 2);
+                deltas = Arrays.copyOf(deltas, ranges * 2);
+                ends = Arrays.copyOf(ends, ranges * 2);
+            }
+            sources.add(source);
+            froms[ranges] = from;
+            deltas[ranges] = delta;
+            ends[ranges] = size() + to - from;
+            ranges++;
+        }
+
+        private List<Token> compact() {
+            return ranges < MAX_RANGES ? this : new ArrayList<>(this);
+        }
+
+        @Override
+        public Token get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size() + ".");
+            }
+            int low = 0;
+            int high = ranges - 1;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (ends[middle] <= index) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            int start = low == 0 ? 0 : ends[low - 1];
+            Token token = sources.get(low).get(froms[low] + index - start);
+            return deltas[low] == 0 ? token : token.shift(deltas[low]);
+        }
+
+        @Override
+        public int size() {
+            return ranges == 0 ? 0 : ends[ranges - 1];
+        }
+
+    }
+
+}
@@ -0,0 +1,181 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A fixed set of keywords, so {@link Token.Type#IDENTIFIER} tokens which are
+ * keywords can be tagged with the keyword's id as they are lexed (see {@link
+ * Token#getKeyword()}) instead of being compared against every keyword later.
+ *
+ * The keywords are compiled into a minimal perfect hash: each keyword hashes
+ * to a bucket, and each bucket has a displacement which was searched for so
+ * that every keyword ends up in its own slot of a table with exactly one slot
+ * per keyword. A lookup hashes the chars straight out of the lexer's buffer
+ * once, mixes in its bucket's displacement and compares against the one
+ * keyword in that slot, so an identifier is only ever compared with a single
+ * keyword, and keyword tokens share the keyword's String instead of
+ * allocating their literal.
+ */
+public final class KeywordTable {
+
+    private final List<String> keywords;
+    private final int[] displacements;
+    private final String[] slots;
+    private final int[] ids;
+    private final int minLength;
+    private final int maxLength;
+    private long seed;
+
+    private KeywordTable(List<String> keywords) {
+        this.keywords = keywords;
+        int size = keywords.size();
+        int min = Integer.MAX_VALUE;
+        int max = 0;
+        for (String keyword : keywords) {
+            if (keyword.isEmpty()) {
+                throw new IllegalArgumentException("Keywords can't be empty.");
+            }
+            min = Math.min(min, keyword.length());
+            max = Math.max(max, keyword.length());
+        }
+        minLength = min;
+        maxLength = max;
+        displacements = new int[Math.max(1, (size + 1) / 2)];
+        slots = new String[size];
+        ids = new int[size];
+        //a seed which makes two keywords hash the same can't be displaced
+        //apart, so that (or a displacement search running long) starts over
+        while (!build()) {
+            seed++;
+        }
+    }
+
+    /**
+     * Creates a table of the given keywords, which get ids in the order they
+     * are given.
+     */
+    public static KeywordTable of(String... keywords) {
+        Set<String> distinct = new LinkedHashSet<>(Arrays.asList(keywords));
+        return new KeywordTable(new ArrayList<>(distinct));
+    }
+
+    public List<String> getKeywords() {
+        return Collections.unmodifiableList(keywords);
+    }
+
+    public String getKeyword(int id) {
+        return keywords.get(id);
+    }
+
+    public int size() {
+        return keywords.size();
+    }
+
+    /**
+     * Returns the id of the keyword in the given range of chars, or -1 if
+     * it isn't one.
+     */
+    public int lookup(char[] chars, int offset, int length) {
+        if (length < minLength || length > maxLength) {
+            return -1;
+        }
+        long hash = hash(chars, offset, length);
+        int slot = slot(hash, displacements[bucket(hash)]);
+        String keyword = slots[slot];
+        if (keyword.length() != length) {
+            return -1;
+        }
+        for (int i = 0; i < length; i++) {
+            if (keyword.charAt(i) != chars[offset + i]) {
+                return -1;
+            }
+        }
+        return ids[slot];
+    }
+
+    public int lookup(String keyword) {
+        return lookup(keyword.toCharArray(), 0, keyword.length());
+    }
+
+    /**
+     * Places the keywords with the current seed, largest buckets first since
+     * they are the hardest to fit, returning false if it gave up.
+     */
+    private boolean build() {
+        int size = keywords.size();
+        long[] hashes = new long[size];
+        int[] counts = new int[displacements.length];
+        for (int i = 0; i < size; i++) {
+            String keyword = keywords.get(i);
+            hashes[i] = hash(keyword.toCharArray(), 0, keyword.length());
+            counts[bucket(hashes[i])]++;
+        }
+        Integer[] order = new Integer[displacements.length];
+        for (int bucket = 0; bucket < order.length; bucket++) {
+            order[bucket] = bucket;
+        }
+        Arrays.sort(order, (a, b) -> counts[b] - counts[a]);
+        Arrays.fill(slots, null);
+        int[] members = new int[size];
+        int[] taken = new int[size];
+        for (int bucket : order) {
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (bucket(hashes[i]) == bucket) {
+                    members[count++] = i;
+                }
+            }
+            if (count == 0) {
+                continue;
+            }
+            boolean placed = false;
+            for (int displacement = 0; displacement < 1 << 16 && !placed; displacement++) {
+                placed = true;
+                for (int m = 0; m < count && placed; m++) {
+                    int slot = slot(hashes[members[m]], displacement);
+                    taken[m] = slot;
+                    placed = slots[slot] == null;
+                    for (int other = 0; other < m && placed; other++) {
+                        placed = taken[other] != slot;
+                    }
+                }
+                if (placed) {
+                    displacements[bucket] = displacement;
+                    for (int m = 0; m < count; m++) {
+                        slots[taken[m]] = keywords.get(members[m]);
+                        ids[taken[m]] = members[m];
+                    }
+                }
+            }
+            if (!placed) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long hash(char[] chars, int offset, int length) {
+        long hash = seed ^ 0xCBF29CE484222325L;
+        for (int i = offset; i < offset + length; i++) {
+            hash = (hash ^ chars[i]) * 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    private int bucket(long hash) {
+        return (int) ((hash >>> 33) % displacements.length);
+    }
+
+    private int slot(long hash, int displacement) {
+        long mixed = hash ^ displacement * 0x9E3779B97F4A7C15L;
+        mixed = (mixed ^ mixed >>> 31) * 0xBF58476D1CE4E5B9L;
+        mixed ^= mixed >>> 29;
+        return (int) ((mixed >>> 1) % slots.length);
+    }
+
+}
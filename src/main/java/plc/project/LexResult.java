@@ -0,0 +1,36 @@
+package plc.project;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The tokens and errors from {@link Lexer#lexRecovering()}, which keeps lexing
+ * past errors instead of throwing the first one.
+ */
+public final class LexResult {
+
+    private final List<Token> tokens;
+    private final List<ParseException> errors;
+
+    public LexResult(List<Token> tokens, List<ParseException> errors) {
+        this.tokens = Collections.unmodifiableList(tokens);
+        this.errors = Collections.unmodifiableList(errors);
+    }
+
+    public List<Token> getTokens() {
+        return tokens;
+    }
+
+    /**
+     * Returns the errors in the order they were found. These exceptions don't
+     * have stack traces, since they're collected rather than thrown.
+     */
+    public List<ParseException> getErrors() {
+        return errors;
+    }
+
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+
+}
@@ -1,7 +1,24 @@
 package plc.project;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * The lexer works through three main functions:
@@ -16,11 +33,111 @@ import java.util.List;
  *
  * The {@link #peek(String...)} and {@link #match(String...)} functions are * helpers you need to use, they will make the implementation a lot easier. */
 public final class Lexer {
+    /**
+     * The implementation used by {@link #lex()}. {@link #PATTERN} is the
+     * recursive lexToken/peek/match implementation in this class, while
+     * {@link #TABLE} runs a precomputed transition table over the input (see
+     * {@link TableLexer}). Both produce the same tokens and exceptions.
+     */
+    public enum Engine {
+        PATTERN,
+        TABLE
+    }
+
     // throw parse except everywhere where it cant be lexed
     private final CharStream chars;
+    private final Engine engine;
+    private final TableLexer table;
+    private final OperatorTable operators;
+    private LexerListener listener;
+    private long peeks;
+    private long matches;
 
     public Lexer(String input) {
-        chars = new CharStream(input);
+        this(input, Engine.PATTERN);
+    }
+
+    public Lexer(String input, Engine engine) {
+        this(new CharStream(input), engine);
+    }
+
+    /**
+     * Lexes everything the reader produces. The input is read through a
+     * bounded buffer as tokens are lexed, so together with {@link #stream()}
+     * the whole input never has to be in memory at once. Token and exception
+     * indices are still absolute offsets from the start of the reader.
+     */
+    public Lexer(Reader reader) {
+        this(reader, Engine.PATTERN);
+    }
+
+    public Lexer(Reader reader, Engine engine) {
+        this(new CharStream(reader), engine);
+    }
+
+    public Lexer(CharStream chars, Engine engine) {
+        this(chars, engine, null);
+    }
+
+    /**
+     * Lexes a range of the array in place, without copying it into a String
+     * first (see {@link CharStream#CharStream(char[], int, int)}).
+     */
+    public Lexer(char[] chars, int offset, int length, Engine engine) {
+        this(new CharStream(chars, offset, length), engine);
+    }
+
+    /**
+     * Lexes any char sequence without converting it to a String first. Array
+     * backed {@link CharBuffer}s are lexed in place, and anything else is
+     * read through the char stream's bounded window.
+     */
+    public Lexer(CharSequence input, Engine engine) {
+        this(input instanceof String ? new CharStream((String) input)
+                : input instanceof CharBuffer ? new CharStream((CharBuffer) input)
+                : new CharStream(input), engine);
+    }
+
+    /**
+     * Creates a lexer which interns identifier and operator literals in the
+     * given {@link SymbolTable}, so repeated literals share one String and
+     * tokens carry their symbol id.
+     */
+    public Lexer(String input, Engine engine, SymbolTable symbols) {
+        this(new CharStream(input), engine, symbols);
+    }
+
+    public Lexer(CharStream chars, Engine engine, SymbolTable symbols) {
+        this(chars, engine, symbols, OperatorTable.DEFAULT);
+    }
+
+    /**
+     * Creates a lexer for a dialect with its own set of operators, such as
+     * {@code OperatorTable.DEFAULT.with("<", "<=", ">", ">=")}.
+     */
+    public Lexer(String input, Engine engine, OperatorTable operators) {
+        this(new CharStream(input), engine, null, operators);
+    }
+
+    public Lexer(CharStream chars, Engine engine, SymbolTable symbols, OperatorTable operators) {
+        this(chars, engine, symbols, operators, null);
+    }
+
+    /**
+     * Creates a lexer which tags identifiers that are in the given {@link
+     * KeywordTable} with their keyword id (see {@link Token#getKeyword()}).
+     */
+    public Lexer(String input, Engine engine, KeywordTable keywords) {
+        this(new CharStream(input), engine, null, OperatorTable.DEFAULT, keywords);
+    }
+
+    public Lexer(CharStream chars, Engine engine, SymbolTable symbols, OperatorTable operators, KeywordTable keywords) {
+        chars.symbols = symbols;
+        chars.keywords = keywords;
+        this.chars = chars;
+        this.engine = engine;
+        this.operators = operators;
+        this.table = engine == Engine.TABLE ? new TableLexer(chars, operators) : null;
     }
 
     /**
@@ -28,24 +145,254 @@ public final class Lexer {
      * whitespace where appropriate.
      */
     public List<Token> lex() {
-        boolean quotesOpened = false;
         List<Token> tokenList = new ArrayList<Token> ();
-        char curr = chars.get(0); //setting current character to beginning
+        Token token;
+        if (listener == null) {
+            while((token = next()) != null){
+                tokenList.add(token);
+            }
+            return tokenList;
+        }
+        int start = chars.index;
+        long begin = System.nanoTime();
+        peeks = 0;
+        matches = 0;
+        try {
+            while((token = next()) != null){
+                tokenList.add(token);
+            }
+            return tokenList;
+        } finally {
+            listener.onLex(engine, chars.index - start, tokenList.size(), peeks, matches, System.nanoTime() - begin);
+        }
+    }
+
+    /**
+     * Sets the listener receiving metrics from this lexer, or null (the
+     * default) to turn them off.
+     */
+    public void setListener(LexerListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Starts this lexer over on a new input, reusing its char stream buffer
+     * rather than creating a new lexer for every input.
+     */
+    public void reset(String input) {
+        chars.reset(input);
+    }
+
+    /**
+     * Lexes the whole input like {@link #lex()}, but instead of throwing at
+     * the first error it records it, skips to a sensible point to carry on
+     * from and keeps lexing, so every error in the input is reported in one
+     * pass. Recovery always runs on the table engine, which produces the same
+     * tokens and errors as the pattern engine up to the first error.
+     */
+    public LexResult lexRecovering() {
+        TableLexer lexer = table != null ? table : new TableLexer(chars, operators);
+        List<ParseException> errors = new ArrayList<>();
+        int start = chars.index;
+        long begin = listener != null ? System.nanoTime() : 0;
+        List<Token> tokens;
+        lexer.recover(errors);
+        try {
+            tokens = lexer.lex();
+        } finally {
+            //the table engine is shared with lex(), which has to throw again
+            lexer.recover(null);
+        }
+        if (listener != null) {
+            long nanos = System.nanoTime() - begin;
+            for (Token token : tokens) {
+                listener.onToken(token.getType(), token.getIndex(), token.getLiteral().length());
+            }
+            for (ParseException error : errors) {
+                listener.onError(error);
+            }
+            listener.onLex(Engine.TABLE, chars.index - start, tokens.size(), 0, 0, nanos);
+        }
+        return new LexResult(tokens, errors);
+    }
+
+    /**
+     * Lexes a UTF-8 file by memory mapping it and decoding the mapped bytes
+     * as they are lexed (see {@link MappedFileReader}), rather than reading
+     * the whole file into a String first.
+     */
+    public static List<Token> lexFile(Path path, Engine engine) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new Lexer(new MappedFileReader(channel), engine).lex();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Lexes the input with the table engine into a {@link TokenBuffer}, which
+     * stores tokens as columns over the input instead of allocating a {@link
+     * Token} and literal for each one.
+     */
+    public static TokenBuffer lexBuffer(String input) {
+        return TokenBuffer.lex(input);
+    }
+
+    /**
+     * Lexes a document after an edit, given the tokens lexed from it before
+     * the edit. The input is the edited document, in which {@code removed}
+     * chars at {@code offset} were replaced by {@code inserted} new ones. Only
+     * the tokens around the edit are lexed again (see {@link IncrementalLexer})
+     * and the result is the same as lexing the whole input.
+     */
+    public static List<Token> relex(String input, List<Token> previous, int offset, int removed, int inserted) {
+        return relex(input, previous, offset, removed, inserted, null, OperatorTable.DEFAULT, null);
+    }
+
+    /**
+     * Relexes an edit like {@link #relex(String, List, int, int, int)} for
+     * tokens which were lexed with the given tables (the symbol and keyword
+     * tables can be null), which the relexed tokens are lexed with too.
+     */
+    public static List<Token> relex(String input, List<Token> previous, int offset, int removed, int inserted,
+                                    SymbolTable symbols, OperatorTable operators, KeywordTable keywords) {
+        return IncrementalLexer.relex(input, previous, offset, removed, inserted, symbols, operators, keywords);
+    }
+
+    public static TokenBuffer relex(String input, TokenBuffer previous, int offset, int removed, int inserted) {
+        return IncrementalLexer.relex(input, previous, offset, removed, inserted);
+    }
+
+    /**
+     * Lexes the input in chunks on the common {@link ForkJoinPool}, producing
+     * the same tokens (or exception) as {@link #lex()} with either engine. See
+     * {@link ParallelLexer} for how the chunks are stitched together.
+     */
+    public static List<Token> lexParallel(String input) {
+        return lexParallel(input, ForkJoinPool.commonPool());
+    }
+
+    public static List<Token> lexParallel(String input, ForkJoinPool pool) {
+        return new ParallelLexer(pool).lex(input);
+    }
+
+    /**
+     * Returns an iterator which lexes a token each time {@link Iterator#next()}
+     * is called, rather than lexing the whole input up front like {@link
+     * #lex()}. A {@link ParseException} is thrown from the call that reaches
+     * the invalid token.
+     */
+    public Iterator<Token> iterator() {
+        return new Iterator<Token>() {
+
+            private Token next;
 
+            @Override
+            public boolean hasNext() {
+                if (next == null) {
+                    next = Lexer.this.next();
+                }
+                return next != null;
+            }
+
+            @Override
+            public Token next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Token token = next;
+                next = null;
+                return token;
+            }
+
+        };
+    }
+
+    /**
+     * Returns a sequential stream of tokens lexed lazily using {@link
+     * #iterator()}.
+     */
+    public Stream<Token> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(),
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Returns a {@link TokenStream} for a parser, lexing tokens as it peeks
+     * at and advances over them, with up to the given number of tokens of
+     * lookahead.
+     */
+    public TokenStream tokens(int lookahead) {
+        return new TokenStream(this, lookahead);
+    }
+
+    /**
+     * Returns the {@link LineIndex} of the input, which is built as the input
+     * is read (including from a streaming source), so it covers at least
+     * every token lexed so far. Call this before lexing starts.
+     */
+    public LineIndex lines() {
+        return chars.lines();
+    }
+
+    /**
+     * Returns a publisher which lexes tokens as its subscriber requests them
+     * (see {@link TokenPublisher}), delivering them on the requesting thread.
+     */
+    public TokenPublisher publisher() {
+        return publisher(Runnable::run);
+    }
+
+    /**
+     * Returns a publisher delivering tokens on the given executor.
+     */
+    public TokenPublisher publisher(Executor executor) {
+        return new TokenPublisher(this, executor);
+    }
+
+    /**
+     * Lexes the next token, or returns null at the end of the input, passing
+     * it (or the exception) on to the listener if there is one.
+     */
+    private Token next() {
+        if (listener == null) {
+            return nextToken();
+        }
+        try {
+            Token token = nextToken();
+            if (token != null) {
+                listener.onToken(token.getType(), token.getIndex(), token.getLiteral().length());
+            }
+            return token;
+        } catch (ParseException e) {
+            listener.onError(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Skips whitespace and lexes the next token with the selected engine, or
+     * returns null at the end of the input.
+     */
+    private Token nextToken() {
+        if (engine == Engine.TABLE) {
+            return table.next();
+        }
         //until reached end of input str
-        while(chars.index < chars.input.length()){
+        while(chars.has(0)){
             //if next chars are whitespace, match to nothing, advance char stream
 
             //Important: match and peek only check 1 char at a time
             if(peek(" |\b|\n|\r|\t")){
                 //updating index instead of advancing to not change the length
                 chars.index++;
+                chars.index = chars.base + CharRuns.whitespace(chars.buffer, chars.index - chars.base, chars.limit);
             }
             else{
-                tokenList.add(lexToken());
+                return lexToken();
             }
         }
-        return tokenList;
+        return null;
     }
 
     /**
@@ -90,6 +437,8 @@ public final class Lexer {
 
         while(peek("@?[A-Za-z0-9_-]*")){
             match("@?[A-Za-z0-9_-]*");
+            //the rest of the identifier in the buffer can be skipped at once
+            chars.advanceTo(CharRuns.identifier(chars.buffer, chars.index - chars.base, chars.limit));
         }
 
         return chars.emit(Token.Type.IDENTIFIER);
@@ -98,17 +447,18 @@ public final class Lexer {
     }
 
     public Token lexNumber() {
+        chars.values.startNumber();
         if(peek("0")){
-            match("0");
+            matchNumber("0");
 
             if(peek("0|-|[1-9]")){
                 throw new ParseException("Parse exception: leading zeros", chars.index);
             }
             else if(peek("\\.")){
-                match("\\.");
+                matchNumber("\\.");
                 if(peek("[0-9]")){
                     while(peek("[0-9]")){
-                        match("[0-9]");
+                        matchNumber("[0-9]");
                     }
                     return chars.emit(Token.Type.DECIMAL);
                 } else {
@@ -121,16 +471,16 @@ public final class Lexer {
 
         if (peek("-|[1-9]")) {
             if(peek("-")){
-                match("-");
+                matchNumber("-");
             }
             while(peek("[1-9]")){
-                match("[1-9]");
+                matchNumber("[1-9]");
             }
             if(peek("\\.")){
-                match("\\.");
+                matchNumber("\\.");
                 if(peek("[0-9]")){
                     while(peek("[0-9]")){
-                        match("[0-9]");
+                        matchNumber("[0-9]");
                     }
                     return chars.emit(Token.Type.DECIMAL);
                 } else {
@@ -145,6 +495,15 @@ public final class Lexer {
         }
     }
 
+    /**
+     * Matches the next char of a number, adding it to the number's value.
+     */
+    private void matchNumber(String pattern) {
+        if(match(pattern)){
+            chars.values.number(chars.get(-1));
+        }
+    }
+
     public Token lexCharacter() {
     // use lexEscape() when escape character is detected
         boolean quoteOpen = false;
@@ -189,6 +548,7 @@ public final class Lexer {
             quotesOpen = true;
             match("\"");
         }
+        chars.values.startString(chars.index);
 
         while(peek("[^\"]")){
             if(peek("\b|\n|\r|\t")){
@@ -199,12 +559,16 @@ public final class Lexer {
             } else if(peek("\\\\")){
                 match("\\\\");
                 if(peek("[bnrt]")){
+                    char letter = chars.get(0);
+                    chars.values.escape(chars.buffer, chars.base, chars.index - 1, letter);
                     lexEscape();
                 } else {
                     throw new ParseException("Parse exception: invalid escape", chars.index);
                 }
             } else {
                 match("[^\"]");
+                //skip ahead to the next char that needs handling
+                chars.advanceTo(CharRuns.stringBody(chars.buffer, chars.index - chars.base, chars.limit));
             }
         }
 
@@ -227,50 +591,43 @@ public final class Lexer {
         }
     }
 
+    /**
+     * Lexes the longest operator in the lexer's {@link OperatorTable} by
+     * walking its trie one char at a time, backing up to the last operator
+     * passed if the input stops matching further on.
+     */
     public Token lexOperator() {
 
-        while(peek("[^a-zA-Z0-9\" ]")){
-            // may be more efficent using advance()
-            if(peek("\b|\n|\r|\t")){
-                lexEscape();
-                throw new ParseException("Parse exception: escape in operator", chars.index);
-            }
-            else if(peek("!")){
-                match("!");
-                if(peek("=")){
-                    match("=");
-                }
-                return chars.emit(Token.Type.OPERATOR);
-            }
-            else if(peek("=")){
-                match("=");
-                if(peek("=")){
-                    match("=");
-                }
-                return chars.emit(Token.Type.OPERATOR);
-            }
-            else if(peek("&")){
-                match("&");
-                if(peek("&")){
-                    match("&");
-                    return chars.emit(Token.Type.OPERATOR);
-                } else {
-                    throw new ParseException("Parse exception: unterminated &&", chars.index);
-                }
+        if(!peek("[^a-zA-Z0-9\" ]")){
+            return chars.emit(Token.Type.OPERATOR);
+        }
+        if(peek("\b|\n|\r|\t")){
+            lexEscape();
+            throw new ParseException("Parse exception: escape in operator", chars.index);
+        }
+        int state = 0;
+        int depth = 0;
+        int longest = 0;
+        while(chars.has(depth)){
+            int next = operators.next(state, chars.get(depth));
+            if(next < 0){
+                break;
             }
-            else if(peek("\\|")){
-                match("\\|");
-                if(peek("\\|")){
-                    match("\\|");
-                    return chars.emit(Token.Type.OPERATOR);
-                } else {
-                    throw new ParseException("Parse exception: unterminated ||", chars.index);
-                }
-            } else {
-                match("[^a-zA-Z0-9\"]");
-                return chars.emit(Token.Type.OPERATOR);
+            state = next;
+            depth++;
+            if(operators.accepts(state)){
+                longest = depth;
             }
         }
+        if(depth == 0){
+            //not the start of any operator, so a single char one
+            longest = 1;
+        } else if(longest == 0){
+            throw new ParseException(operators.unterminated(state), chars.index + depth);
+        }
+        for(int i = 0; i < longest; i++){
+            chars.advance();
+        }
         return chars.emit(Token.Type.OPERATOR);
     }
 
@@ -278,17 +635,34 @@ public final class Lexer {
      * Returns true if the next sequence of characters match the given patterns,
      * which should be a regex. For example, {@code peek("a", "b", "c")} would
      * return true if the next characters are {@code 'a', 'b', 'c'}.
+     *
+     * Each pattern is compiled once into a {@link CharPattern} and reused, so
+     * peeking doesn't allocate or run the regex engine per character.
      */
     public boolean peek(String... patterns) {
+        if (listener != null) {
+            peeks++;
+        }
         for(int i = 0; i< patterns.length; i++){
             //chars from charStream
-            if(!chars.has(i) || !String.valueOf(chars.get(i)).matches(patterns[i])){
+            if(!chars.has(i) || !CharPattern.compile(patterns[i]).matches(chars.get(i))){
                 return false;
             }
         }
         return true;
     }
 
+    /**
+     * Single pattern form of {@link #peek(String...)}, which is by far the
+     * most common call and skips the varargs array.
+     */
+    public boolean peek(String pattern) {
+        if (listener != null) {
+            peeks++;
+        }
+        return chars.has(0) && CharPattern.compile(pattern).matches(chars.get(0));
+    }
+
 
 
     //test
@@ -298,6 +672,9 @@ public final class Lexer {
      * true. Hint - it's easiest to have this method simply call peek.
      */
     public boolean match(String... patterns) {
+        if (listener != null) {
+            matches++;
+        }
         boolean peek = peek(patterns);
 
         if(peek) {
@@ -310,6 +687,20 @@ public final class Lexer {
         return peek;
     }
 
+    /**
+     * Single pattern form of {@link #match(String...)}.
+     */
+    public boolean match(String pattern) {
+        if (listener != null) {
+            matches++;
+        }
+        boolean peek = peek(pattern);
+        if(peek) {
+            chars.advance();
+        }
+        return peek;
+    }
+
     /**
      * A helper class maintaining the input string, current index of the char
      * stream, and the current length of the token being matched.
@@ -317,23 +708,118 @@ public final class Lexer {
      * You should rely on peek/match for state management in nearly all cases.
      * The only field you need to access is {@link #index} for any {@link
      * ParseException} which is thrown.
+     *
+     * The input is held in a buffer which is refilled from a {@link Reader}
+     * as the stream advances. Characters before the start of the current
+     * token are dropped on each refill, so the buffer only grows beyond its
+     * initial capacity if a single token is longer than that. All indices are
+     * absolute offsets into the input, with {@link #base} being the index of
+     * the first character in the buffer.
      */
     public static final class CharStream {
 
-        private final String input;
-        private int index = 0;
-        private int length = 0;
+        private static final int CAPACITY = 8192;
+
+        private Reader reader;
+        private final int capacity;
+        private boolean ended = false;
+        private boolean shared = false;
+        private LineIndex lines;
+        private String input; // the whole input, when reset to a String
+        SymbolTable symbols;
+        KeywordTable keywords;
+        final ValueBuilder values = new ValueBuilder();
+        char[] buffer;
+        int base = 0;
+        int limit = 0;
+        int index = 0;
+        int length = 0;
 
         public CharStream(String input) {
-            this.input = input;
+            this(input, 0);
+        }
+
+        /**
+         * Creates a stream over the input starting at the given index, as if
+         * everything before it had already been lexed.
+         */
+        CharStream(String input, int start) {
+            this(null, CAPACITY, new char[Math.max(1, Math.min(input.length() - start, CAPACITY))]);
+            reset(input, start);
+        }
+
+        public CharStream(Reader reader) {
+            this(reader, CAPACITY);
+        }
+
+        public CharStream(Reader reader, int capacity) {
+            this(reader, capacity, new char[capacity]);
+        }
+
+        /**
+         * Creates a stream over a range of the array, which is lexed in place
+         * rather than copied, so it mustn't change while being lexed. Indices
+         * are still offsets from the start of the range.
+         */
+        public CharStream(char[] chars, int offset, int length) {
+            this(null, CAPACITY, chars);
+            share(offset, length);
+        }
+
+        /**
+         * Creates a stream over the remaining chars of the buffer. A buffer
+         * backed by an accessible array is lexed in place like {@link
+         * #CharStream(char[], int, int)}, while any other (such as a direct
+         * or read-only buffer) is read through the usual bounded window.
+         */
+        public CharStream(CharBuffer input) {
+            this(input.hasArray() ? null : new SequenceReader(input), CAPACITY,
+                    input.hasArray() ? input.array() : new char[CAPACITY]);
+            if (input.hasArray()) {
+                share(input.arrayOffset() + input.position(), input.remaining());
+            }
+        }
+
+        /**
+         * Creates a stream reading any other char sequence (such as a {@link
+         * StringBuilder}) through the bounded window, without converting the
+         * whole sequence to a String first.
+         */
+        public CharStream(CharSequence input) {
+            this(new SequenceReader(input), CAPACITY);
+        }
+
+        private CharStream(Reader reader, int capacity, char[] buffer) {
+            this.reader = reader;
+            this.capacity = capacity;
+            this.buffer = buffer;
+        }
+
+        private void share(int offset, int length) {
+            if (offset < 0 || length < 0 || offset + length > buffer.length) {
+                throw new IndexOutOfBoundsException("Invalid range at " + offset + " of length " + length
+                        + " in array of length " + buffer.length + ".");
+            }
+            base = -offset;
+            limit = offset + length;
+            ended = true;
+            shared = true;
         }
 
         public boolean has(int offset) {
-            return index + offset < input.length();
+            while (index + offset - base >= limit) {
+                if (!fill(index - length)) {
+                    return false;
+                }
+            }
+            return true;
         }
 
         public char get(int offset) {
-            return input.charAt(index + offset);
+            if (index + offset - base >= limit && !has(offset)) {
+                throw new IndexOutOfBoundsException("Index " + (index + offset) + " is past the end of the input.");
+            }
+            return buffer[index + offset - base];
         }
 
         public void advance() {
@@ -341,6 +827,16 @@ public final class Lexer {
             length++;
         }
 
+        /**
+         * Advances to the given position in the buffer, as if {@link
+         * #advance()} had been called for every char before it.
+         */
+        void advanceTo(int position) {
+            int end = base + position;
+            length += end - index;
+            index = end;
+        }
+
         public void skip() {
             length = 0;
         }
@@ -348,9 +844,187 @@ public final class Lexer {
         public Token emit(Token.Type type) {
             int start = index - length;
             skip();
-            return new Token(type, input.substring(start, index), start);
+            return token(type, start, index);
+        }
+
+        /**
+         * Creates the token for the given absolute range, which has to still
+         * be in the buffer, interning its literal if there's a symbol table.
+         * Keywords are looked up in the buffer and share the keyword table's
+         * literal, and other tokens get the value {@link #values} built while
+         * they were scanned. A string without escapes is given a view of the
+         * input if the stream has it, or else of its literal.
+         */
+        Token token(Token.Type type, int start, int end) {
+            if (keywords != null && type == Token.Type.IDENTIFIER) {
+                int keyword = keywords.lookup(buffer, start - base, end - start);
+                if (keyword >= 0) {
+                    int symbol = symbols != null ? symbols.intern(buffer, start - base, end - start) : -1;
+                    return new Token(type, keywords.getKeyword(keyword), start, symbol, keyword);
+                }
+            }
+            if (symbols != null && (type == Token.Type.IDENTIFIER || type == Token.Type.OPERATOR)) {
+                int symbol = symbols.intern(buffer, start - base, end - start);
+                return new Token(type, symbols.symbol(symbol), start, symbol);
+            }
+            String literal = new String(buffer, start - base, end - start);
+            Object value = values.value(type, buffer, base, start, end);
+            if (value == null && type == Token.Type.STRING) {
+                value = input != null
+                        ? new CharSlice(input, start + 1, end - 1)
+                        : new CharSlice(literal, 1, literal.length() - 1);
+            }
+            return new Token(type, literal, start, -1, -1, value);
+        }
+
+        /**
+         * Starts the stream over on a new input, keeping the buffer. An input
+         * that fits in the buffer (or the default capacity) is copied straight
+         * into it, so lexing many small inputs through one stream doesn't
+         * allocate anything here.
+         */
+        public void reset(String input) {
+            reset(input, 0);
+        }
+
+        void reset(String input, int start) {
+            this.input = input;
+            if (shared) {
+                //never write over the caller's array
+                buffer = new char[capacity];
+                shared = false;
+            }
+            int count = input.length() - start;
+            base = start;
+            index = start;
+            length = 0;
+            if (count <= Math.max(buffer.length, CAPACITY)) {
+                if (count > buffer.length) {
+                    buffer = new char[count];
+                }
+                input.getChars(start, input.length(), buffer, 0);
+                limit = count;
+                reader = null;
+                ended = true;
+                if (lines != null) {
+                    lines.clear();
+                    lines.scan(buffer, 0, limit, base);
+                }
+            } else {
+                if (buffer.length < capacity) {
+                    buffer = new char[capacity];
+                }
+                reader = new StringReader(input);
+                try {
+                    reader.skip(start);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                limit = 0;
+                ended = false;
+                if (lines != null) {
+                    lines.clear();
+                }
+            }
+        }
+
+        /**
+         * Returns the line index of the input, starting to record it (from
+         * the chars in the buffer so far) the first time. After that line
+         * breaks are recorded as chars are read into the buffer, so this has
+         * to be called before anything is discarded from the buffer.
+         */
+        LineIndex lines() {
+            if (lines == null) {
+                lines = new LineIndex();
+                lines.scan(buffer, Math.max(0, -base), limit, base);
+            }
+            return lines;
+        }
+
+        /**
+         * Reads more of the input into the buffer, first discarding everything
+         * before the absolute index {@code keep}. Returns false once the
+         * reader is exhausted.
+         */
+        boolean fill(int keep) {
+            if (ended) {
+                return false;
+            }
+            int discard = keep - base;
+            int remaining = limit - discard;
+            if (discard > 0) {
+                int shrunk = Math.max(capacity, CAPACITY);
+                char[] target = buffer.length > shrunk && remaining < shrunk ? new char[shrunk] : buffer;
+                System.arraycopy(buffer, discard, target, 0, remaining);
+                buffer = target;
+                base = keep;
+                limit = remaining;
+            }
+            if (limit == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            try {
+                int read;
+                do {
+                    read = reader.read(buffer, limit, buffer.length - limit);
+                } while (read == 0);
+                if (read < 0) {
+                    ended = true;
+                    return false;
+                }
+                if (lines != null) {
+                    lines.scan(buffer, limit, limit + read, base);
+                }
+                limit += read;
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Reads a char sequence in bulk where the sequence type allows it.
+         */
+        private static final class SequenceReader extends Reader {
+
+            private final CharSequence sequence;
+            private final CharBuffer chars;
+            private int position = 0;
+
+            private SequenceReader(CharSequence sequence) {
+                this.sequence = sequence;
+                this.chars = sequence instanceof CharBuffer ? ((CharBuffer) sequence).duplicate() : null;
+            }
+
+            @Override
+            public int read(char[] buffer, int offset, int length) {
+                int count = Math.min(length, sequence.length() - position);
+                if (count <= 0) {
+                    return length == 0 ? 0 : -1;
+                }
+                if (chars != null) {
+                    chars.get(buffer, offset, count);
+                } else if (sequence instanceof String) {
+                    ((String) sequence).getChars(position, position + count, buffer, offset);
+                } else if (sequence instanceof StringBuilder) {
+                    ((StringBuilder) sequence).getChars(position, position + count, buffer, offset);
+                } else if (sequence instanceof StringBuffer) {
+                    ((StringBuffer) sequence).getChars(position, position + count, buffer, offset);
+                } else {
+                    for (int i = 0; i < count; i++) {
+                        buffer[offset + i] = sequence.charAt(position + i);
+                    }
+                }
+                position += count;
+                return count;
+            }
+
+            @Override
+            public void close() {}
+
         }
 
     }
 
-}
\ No newline at end of file
+}
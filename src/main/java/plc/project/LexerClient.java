@@ -0,0 +1,48 @@
+package plc.project;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * A connection to a {@link LexerServer} on the loopback address, sending one
+ * request at a time.
+ */
+public final class LexerClient implements Closeable {
+
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+
+    public LexerClient(int port) throws IOException {
+        socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        socket.setTcpNoDelay(true);
+        in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    /**
+     * Lexes the input on the server, with the same results as {@link
+     * LexerServer#decode(String, java.io.DataInput)}.
+     */
+    public List<Token> lex(String input) throws IOException {
+        byte[] request = input.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(request.length);
+        out.write(request);
+        out.flush();
+        return LexerServer.decode(input, in);
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+
+}
@@ -0,0 +1,63 @@
+package plc.project;
+
+/**
+ * Receives instrumentation from a {@link Lexer} it was given through {@link
+ * Lexer#setListener(LexerListener)}. Lexers have no listener by default, in
+ * which case the only cost left in the hot path is a null check per token and
+ * per peek or match.
+ *
+ * Listeners may be shared between lexers on different threads, see {@link
+ * LexerMetrics} for one which counts everything.
+ */
+public interface LexerListener {
+
+    /**
+     * Called for each token lexed, with its absolute index and length.
+     */
+    default void onToken(Token.Type type, int index, int length) {}
+
+    /**
+     * Called with each error the lexer throws, or collects while recovering.
+     */
+    default void onError(ParseException exception) {}
+
+    /**
+     * Called when a call to {@link Lexer#lex()} (or {@link
+     * Lexer#lexRecovering()}) returns or throws, with the chars consumed, the
+     * tokens lexed, the peek and match calls made by the pattern engine (peeks
+     * include those made by match) and the time taken.
+     */
+    default void onLex(Lexer.Engine engine, int chars, int tokens, long peeks, long matches, long nanos) {}
+
+    /**
+     * Returns a listener passing everything on to each of the given ones.
+     */
+    static LexerListener all(LexerListener... listeners) {
+        LexerListener[] copy = listeners.clone();
+        return new LexerListener() {
+
+            @Override
+            public void onToken(Token.Type type, int index, int length) {
+                for (LexerListener listener : copy) {
+                    listener.onToken(type, index, length);
+                }
+            }
+
+            @Override
+            public void onError(ParseException exception) {
+                for (LexerListener listener : copy) {
+                    listener.onError(exception);
+                }
+            }
+
+            @Override
+            public void onLex(Lexer.Engine engine, int chars, int tokens, long peeks, long matches, long nanos) {
+                for (LexerListener listener : copy) {
+                    listener.onLex(engine, chars, tokens, peeks, matches, nanos);
+                }
+            }
+
+        };
+    }
+
+}
@@ -0,0 +1,108 @@
+package plc.project;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link LexerListener} counting tokens by type, chars consumed, peek and
+ * match calls, time spent lexing and errors by cause. Counters are {@link
+ * LongAdder}s, so one instance can be shared by lexers on any number of
+ * threads.
+ */
+public final class LexerMetrics implements LexerListener {
+
+    private static final Token.Type[] TYPES = Token.Type.values();
+
+    private final LongAdder[] tokens = new LongAdder[TYPES.length];
+    private final LongAdder chars = new LongAdder();
+    private final LongAdder peeks = new LongAdder();
+    private final LongAdder matches = new LongAdder();
+    private final LongAdder lexes = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    private final ConcurrentHashMap<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    public LexerMetrics() {
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void onToken(Token.Type type, int index, int length) {
+        tokens[type.ordinal()].increment();
+    }
+
+    @Override
+    public void onError(ParseException exception) {
+        errors.computeIfAbsent(cause(exception), cause -> new LongAdder()).increment();
+    }
+
+    @Override
+    public void onLex(Lexer.Engine engine, int chars, int tokens, long peeks, long matches, long nanos) {
+        this.chars.add(chars);
+        this.peeks.add(peeks);
+        this.matches.add(matches);
+        this.lexes.increment();
+        this.nanos.add(nanos);
+    }
+
+    public long getTokens(Token.Type type) {
+        return tokens[type.ordinal()].sum();
+    }
+
+    public long getTokens() {
+        long sum = 0;
+        for (LongAdder count : tokens) {
+            sum += count.sum();
+        }
+        return sum;
+    }
+
+    public long getChars() {
+        return chars.sum();
+    }
+
+    public long getPeeks() {
+        return peeks.sum();
+    }
+
+    public long getMatches() {
+        return matches.sum();
+    }
+
+    public long getLexes() {
+        return lexes.sum();
+    }
+
+    public long getNanos() {
+        return nanos.sum();
+    }
+
+    /**
+     * Returns the chars consumed per second of lexing, which is also bytes
+     * per second for ASCII input.
+     */
+    public double getCharsPerSecond() {
+        long nanos = getNanos();
+        return nanos == 0 ? 0 : getChars() * 1e9 / nanos;
+    }
+
+    /**
+     * Returns the number of errors for each cause, which is the exception
+     * message without the index some of them include.
+     */
+    public Map<String, Long> getErrors() {
+        Map<String, Long> counts = new TreeMap<>();
+        errors.forEach((cause, count) -> counts.put(cause, count.sum()));
+        return counts;
+    }
+
+    private static String cause(ParseException exception) {
+        String message = String.valueOf(exception.getMessage());
+        int index = message.indexOf(" at index: ");
+        return index < 0 ? message : message.substring(0, index);
+    }
+
+}
@@ -0,0 +1,331 @@
+package plc.project;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A small lexing service, accepting requests over a loopback socket or
+ * in-process through {@link #submit(String)}.
+ *
+ * Each connection (and each submitted request) is handled on its own virtual
+ * thread when running on a JDK which has them, falling back to a cached pool
+ * of platform threads. At most {@code maxInFlight} requests are lexed at once
+ * and anything over that is rejected straight away with an {@link #OVERLOADED}
+ * response instead of queueing, as are requests over {@code maxRequestSize}
+ * bytes, so a flood of requests can't build up an unbounded backlog. A
+ * socket request takes its permit before its bytes are allocated and read, so
+ * the limit also bounds the memory held by requests to {@code maxInFlight *
+ * maxRequestSize}, at the cost of a slow client holding a permit while it
+ * sends.
+ *
+ * A request is an {@code int} byte length followed by the UTF-8 input. The
+ * response starts with a status byte. {@link #OK} is followed by the token
+ * count and a type byte, {@code int} index and {@code int} length per token,
+ * which are ranges of the input the client already has. {@link #ERROR} is
+ * followed by the {@link ParseException} index and message, and the other
+ * statuses by a message. A request over the size limit is skipped so the
+ * connection can carry on, unless it claims to be over a megabyte, in which
+ * case the connection is closed after the {@link #TOO_LARGE} response.
+ */
+public final class LexerServer implements Closeable {
+
+    public static final byte OK = 0;
+    public static final byte ERROR = 1;
+    public static final byte OVERLOADED = 2;
+    public static final byte TOO_LARGE = 3;
+
+    private static final Token.Type[] TYPES = Token.Type.values();
+    private static final int MAX_DRAIN = 1 << 20;
+
+    private final int maxRequestSize;
+    private final Semaphore permits;
+    private final ExecutorService executor = threads();
+    private final AtomicLong rejected = new AtomicLong();
+    private final Set<Socket> clients = ConcurrentHashMap.newKeySet();
+    private volatile ServerSocket socket;
+
+    public LexerServer(int maxInFlight, int maxRequestSize) {
+        this.maxRequestSize = maxRequestSize;
+        this.permits = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Starts accepting connections on the loopback address, returning the
+     * port (which is chosen by the system if the given port is 0).
+     */
+    public int listen(int port) throws IOException {
+        socket = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::accept, "lexer-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return socket.getLocalPort();
+    }
+
+    /**
+     * Handles a request in-process, completing with the same response bytes
+     * a socket client would receive.
+     */
+    public CompletableFuture<byte[]> submit(String input) {
+        CompletableFuture<byte[]> response = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    DataOutputStream out = new DataOutputStream(bytes);
+                    handle(input.getBytes(StandardCharsets.UTF_8), out);
+                    out.flush();
+                    response.complete(bytes.toByteArray());
+                } catch (IOException | RuntimeException e) {
+                    response.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            response.completeExceptionally(e);
+        }
+        return response;
+    }
+
+    /**
+     * Returns the number of requests rejected for being over the in-flight
+     * limit so far.
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * Stops accepting connections and closes those already accepted, which
+     * ends any connection threads blocked reading from them.
+     */
+    @Override
+    public void close() throws IOException {
+        executor.shutdownNow();
+        if (socket != null) {
+            socket.close();
+        }
+        for (Socket client : clients) {
+            close(client);
+        }
+    }
+
+    /**
+     * Reads the response to a request for the given input, returning its
+     * tokens or throwing the {@link ParseException} it reported. A rejected
+     * request throws {@link RejectedExecutionException}.
+     */
+    public static List<Token> decode(String input, DataInput in) throws IOException {
+        byte status = in.readByte();
+        if (status == OK) {
+            int count = in.readInt();
+            List<Token> tokens = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Token.Type type = TYPES[in.readByte()];
+                int index = in.readInt();
+                int length = in.readInt();
+                tokens.add(new Token(type, input.substring(index, index + length), index));
+            }
+            return tokens;
+        } else if (status == ERROR) {
+            int index = in.readInt();
+            throw new ParseException(in.readUTF(), index);
+        } else {
+            throw new RejectedExecutionException(in.readUTF());
+        }
+    }
+
+    /**
+     * Accepts connections until the socket is closed. Errors which don't
+     * close it (such as running out of file descriptors) are retried after a
+     * delay doubling up to a second, rather than spinning on them.
+     */
+    private void accept() {
+        ServerSocket socket = this.socket;
+        long backoff = 0;
+        while (!socket.isClosed()) {
+            Socket client;
+            try {
+                client = socket.accept();
+                backoff = 0;
+            } catch (IOException e) {
+                backoff = Math.min(1000, Math.max(10, backoff * 2));
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                continue;
+            }
+            //added before being handed over, so either close() sees it or
+            //the executor has been shut down and rejects it
+            clients.add(client);
+            try {
+                executor.execute(() -> serve(client));
+            } catch (RejectedExecutionException e) {
+                clients.remove(client);
+                close(client);
+            }
+        }
+    }
+
+    /**
+     * Handles requests from a connection until the client closes it.
+     */
+    private void serve(Socket client) {
+        try (Socket connection = client;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()))) {
+            connection.setTcpNoDelay(true);
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    return;
+                }
+                if (length < 0) {
+                    return;
+                } else if (length > maxRequestSize) {
+                    //drain a request which isn't much too large so the
+                    //connection can carry on, otherwise refuse it and close
+                    if (length > MAX_DRAIN) {
+                        tooLarge(out);
+                        out.flush();
+                        return;
+                    }
+                    if (!skip(in, length)) {
+                        return;
+                    }
+                    tooLarge(out);
+                } else if (!permits.tryAcquire()) {
+                    if (!skip(in, length)) {
+                        return;
+                    }
+                    overloaded(out);
+                } else {
+                    String request;
+                    try {
+                        byte[] bytes = new byte[length];
+                        in.readFully(bytes);
+                        request = new String(bytes, StandardCharsets.UTF_8);
+                    } catch (IOException e) {
+                        permits.release();
+                        throw e;
+                    }
+                    lex(request, out);
+                }
+                out.flush();
+            }
+        } catch (IOException e) {
+            //the client went away, nothing to respond to
+        } finally {
+            clients.remove(client);
+        }
+    }
+
+    /**
+     * Skips the bytes of a request which won't be lexed, returning false if
+     * the client closed the connection first.
+     */
+    private static boolean skip(DataInputStream in, int length) throws IOException {
+        while (length > 0) {
+            int skipped = in.skipBytes(length);
+            if (skipped == 0) {
+                return false;
+            }
+            length -= skipped;
+        }
+        return true;
+    }
+
+    private void handle(byte[] request, DataOutputStream out) throws IOException {
+        if (request.length > maxRequestSize) {
+            tooLarge(out);
+        } else if (!permits.tryAcquire()) {
+            overloaded(out);
+        } else {
+            lex(new String(request, StandardCharsets.UTF_8), out);
+        }
+    }
+
+    /**
+     * Lexes a request and writes the response, releasing the permit taken
+     * for it by the caller once lexed.
+     */
+    private void lex(String request, DataOutputStream out) throws IOException {
+        TokenBuffer tokens;
+        try {
+            tokens = Lexer.lexBuffer(request);
+        } catch (ParseException e) {
+            out.writeByte(ERROR);
+            out.writeInt(e.getIndex());
+            out.writeUTF(e.getMessage());
+            return;
+        } finally {
+            permits.release();
+        }
+        out.writeByte(OK);
+        out.writeInt(tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            out.writeByte(tokens.getType(i).ordinal());
+            out.writeInt(tokens.getIndex(i));
+            out.writeInt(tokens.getLength(i));
+        }
+    }
+
+    private void overloaded(DataOutputStream out) throws IOException {
+        rejected.incrementAndGet();
+        out.writeByte(OVERLOADED);
+        out.writeUTF("Too many requests in flight.");
+    }
+
+    private void tooLarge(DataOutputStream out) throws IOException {
+        out.writeByte(TOO_LARGE);
+        out.writeUTF("Requests are limited to " + maxRequestSize + " bytes.");
+    }
+
+    private static void close(Socket client) {
+        try {
+            client.close();
+        } catch (IOException e) {
+            //already closed
+        }
+    }
+
+    /**
+     * Returns an executor starting a virtual thread per task, which only
+     * exists from JDK 21 so is looked up reflectively.
+     */
+    static ExecutorService threads() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "lexer-server-worker");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+}
@@ -0,0 +1,135 @@
+package plc.project;
+
+import java.util.Arrays;
+
+/**
+ * The start offset of every line in an input, for turning the flat indices of
+ * tokens and {@link ParseException}s into a line and column with a binary
+ * search instead of rescanning the input. Lines are separated by {@code \n},
+ * and both lines and columns count from 1.
+ *
+ * An index is built by {@link #of(CharSequence)}, or by a lexer as it reads
+ * its input (see {@link Lexer#lines()}), in which case it covers everything
+ * read so far. {@link #edit(CharSequence, int, int, int)} updates an index
+ * for an edit the same way {@link Lexer#relex} does for tokens.
+ */
+public final class LineIndex {
+
+    private int[] starts;
+    private int count = 1;
+
+    LineIndex() {
+        this(16);
+    }
+
+    private LineIndex(int capacity) {
+        starts = new int[Math.max(1, capacity)];
+    }
+
+    public static LineIndex of(CharSequence input) {
+        LineIndex lines = new LineIndex();
+        for (int i = 0; i < input.length(); i++) {
+            if (input.charAt(i) == '\n') {
+                lines.add(i + 1);
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Records the line breaks in the given range of a buffer, where {@code
+     * base} is the absolute index of the buffer's first char.
+     */
+    void scan(char[] buffer, int from, int to, int base) {
+        for (int i = from; i < to; i++) {
+            if (buffer[i] == '\n') {
+                add(base + i + 1);
+            }
+        }
+    }
+
+    void clear() {
+        count = 1;
+    }
+
+    private void add(int start) {
+        if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+        }
+        starts[count++] = start;
+    }
+
+    public int getLineCount() {
+        return count;
+    }
+
+    /**
+     * Returns the line containing the given offset.
+     */
+    public int getLine(int offset) {
+        if (offset < 0) {
+            throw new IndexOutOfBoundsException("Offset " + offset + " is negative.");
+        }
+        int low = 0;
+        int high = count - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (starts[middle] <= offset) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low + 1;
+    }
+
+    public int getColumn(int offset) {
+        return offset - starts[getLine(offset) - 1] + 1;
+    }
+
+    public int getLineStart(int line) {
+        if (line < 1 || line > count) {
+            throw new IndexOutOfBoundsException("Line " + line + " out of bounds for " + count + " lines.");
+        }
+        return starts[line - 1];
+    }
+
+    /**
+     * Returns the position of the offset as {@code line:column}.
+     */
+    public String format(int offset) {
+        int line = getLine(offset);
+        return line + ":" + (offset - starts[line - 1] + 1);
+    }
+
+    /**
+     * Returns the index of the input after an edit, where {@code removed}
+     * chars at {@code offset} were replaced by {@code inserted} new ones.
+     * Only the inserted text is scanned, and the lines after it are shifted.
+     */
+    public LineIndex edit(CharSequence input, int offset, int removed, int inserted) {
+        if (offset < 0 || removed < 0 || inserted < 0 || offset + inserted > input.length()) {
+            throw new IndexOutOfBoundsException("Invalid edit at " + offset + " of length " + inserted
+                    + " in input of length " + input.length() + ".");
+        }
+        LineIndex lines = new LineIndex(count + 16);
+        int i = 1;
+        while (i < count && starts[i] <= offset) {
+            lines.add(starts[i++]);
+        }
+        for (int c = offset; c < offset + inserted; c++) {
+            if (input.charAt(c) == '\n') {
+                lines.add(c + 1);
+            }
+        }
+        while (i < count && starts[i] <= offset + removed) {
+            i++;
+        }
+        int delta = inserted - removed;
+        for (; i < count; i++) {
+            lines.add(starts[i] + delta);
+        }
+        return lines;
+    }
+
+}
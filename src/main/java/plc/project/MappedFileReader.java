@@ -0,0 +1,111 @@
+package plc.project;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A reader which decodes a UTF-8 file straight out of memory mapped regions
+ * of its channel, so a {@link Lexer.CharStream} can lex a file without first
+ * reading it into a String.
+ *
+ * ASCII bytes are copied directly into the caller's buffer, and the decoder is
+ * only used from the first non ASCII byte of a read. The file is mapped one
+ * region at a time, and a multi byte sequence split across two regions is
+ * carried over by starting the next region at its first byte. The channel is
+ * owned by the caller and has to stay open while reading.
+ */
+public final class MappedFileReader extends Reader {
+
+    private static final long REGION = 1L << 30;
+
+    private final FileChannel channel;
+    private final long size;
+    private final long region;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+    private final CharBuffer surrogates = CharBuffer.allocate(2);
+    private long position = 0;
+    private MappedByteBuffer bytes;
+    private boolean last;
+
+    public MappedFileReader(FileChannel channel) throws IOException {
+        this(channel, REGION);
+    }
+
+    MappedFileReader(FileChannel channel, long region) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        this.region = Math.max(region, 4);
+        map();
+        surrogates.flip();
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException {
+        int count = 0;
+        while (count < length && surrogates.hasRemaining()) {
+            buffer[offset + count++] = surrogates.get();
+        }
+        while (count < length) {
+            ByteBuffer bytes = this.bytes;
+            int position = bytes.position();
+            int end = Math.min(bytes.limit(), position + length - count);
+            while (position < end) {
+                byte b = bytes.get(position);
+                if (b < 0) {
+                    break;
+                }
+                buffer[offset + count++] = (char) b;
+                position++;
+            }
+            bytes.position(position);
+            if (position < end) {
+                CharBuffer chars = CharBuffer.wrap(buffer, offset + count, length - count);
+                CoderResult result = decoder.decode(bytes, chars, last);
+                count = chars.position() - offset;
+                if (result.isError()) {
+                    result.throwException();
+                } else if (result.isOverflow()) {
+                    if (count == 0) {
+                        //only room for one char, so hold back the low surrogate of a pair
+                        surrogates.clear();
+                        decoder.decode(bytes, surrogates, last);
+                        surrogates.flip();
+                        buffer[offset + count++] = surrogates.get();
+                    }
+                    break;
+                } else if (!last) {
+                    map();
+                }
+            } else if (!bytes.hasRemaining()) {
+                if (last) {
+                    break;
+                }
+                map();
+            }
+        }
+        return count == 0 && length > 0 ? -1 : count;
+    }
+
+    @Override
+    public void close() {}
+
+    private void map() throws IOException {
+        if (bytes != null) {
+            position += bytes.position();
+        }
+        long length = Math.min(region, size - position);
+        bytes = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        last = position + length == size;
+    }
+
+}
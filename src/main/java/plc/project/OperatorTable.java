@@ -0,0 +1,199 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The set of operators a {@link Lexer} recognizes, compiled into a trie which
+ * is stored as a flat transition table, so matching an operator costs one
+ * class and one table lookup per char however many operators there are (plus
+ * a binary search over the few non-ASCII operator chars for those).
+ *
+ * Operators are matched longest first. A single char is an operator if it's
+ * in the set, or if no operator in the set starts with it. Otherwise (like
+ * {@code &} in the {@link #DEFAULT} set, which only has {@code &&}) the input
+ * has to continue into some operator, and a {@link ParseException} is thrown
+ * where it stops matching, naming the shortest operator it could have been.
+ * So {@link #of(String...)} excludes a char as a single operator by listing
+ * longer operators starting with it but not the char itself, while {@link
+ * #with(String...)} only ever adds to what a table accepts.
+ */
+public final class OperatorTable {
+
+    /**
+     * The operators of the original language: {@code != == && ||}, with
+     * every other symbol a single char operator.
+     */
+    public static final OperatorTable DEFAULT = of("!", "!=", "=", "==", "&&", "||");
+
+    private final List<String> operators;
+    private final byte[] ascii = new byte[128]; // class + 1, or 0 if unused
+    private final char[] others; // sorted non-ASCII chars, after the ASCII classes
+    private final int classes;
+    private final int[] next; // state * classes + class, or -1
+    private final boolean[] accepting;
+    private final String[] completions;
+    private final int lookahead;
+
+    private OperatorTable(List<String> operators) {
+        this.operators = operators;
+        StringBuilder chars = new StringBuilder();
+        int longest = 0;
+        for (String operator : operators) {
+            if (operator.isEmpty()) {
+                throw new IllegalArgumentException("Operators can't be empty.");
+            }
+            longest = Math.max(longest, operator.length());
+            for (char c : operator.toCharArray()) {
+                if (Character.isLetterOrDigit(c) || Character.isWhitespace(c) || c == '\b'
+                        || c == '"' || c == '\'') {
+                    throw new IllegalArgumentException("Invalid char in operator " + operator + ".");
+                }
+                if (chars.indexOf(String.valueOf(c)) < 0) {
+                    chars.append(c);
+                }
+            }
+        }
+        lookahead = Math.max(1, longest - 1);
+        char[] sorted = chars.toString().toCharArray();
+        Arrays.sort(sorted);
+        List<Character> nonAscii = new ArrayList<>();
+        int count = 0;
+        for (char c : sorted) {
+            if (c < 128) {
+                ascii[c] = (byte) ++count;
+            } else {
+                nonAscii.add(c);
+            }
+        }
+        others = new char[nonAscii.size()];
+        for (int i = 0; i < others.length; i++) {
+            others[i] = nonAscii.get(i);
+        }
+        classes = count + others.length;
+        //build the trie, with states numbered as they're added
+        List<int[]> rows = new ArrayList<>();
+        List<String> accepted = new ArrayList<>();
+        rows.add(row());
+        accepted.add(null);
+        for (String operator : operators) {
+            int state = 0;
+            for (char c : operator.toCharArray()) {
+                int type = type(c);
+                if (rows.get(state)[type] < 0) {
+                    rows.get(state)[type] = rows.size();
+                    rows.add(row());
+                    accepted.add(null);
+                }
+                state = rows.get(state)[type];
+            }
+            accepted.set(state, operator);
+        }
+        next = new int[rows.size() * classes];
+        accepting = new boolean[rows.size()];
+        completions = new String[rows.size()];
+        for (int state = 0; state < rows.size(); state++) {
+            System.arraycopy(rows.get(state), 0, next, state * classes, classes);
+            accepting[state] = accepted.get(state) != null;
+        }
+        //children are always numbered after their parents, so go backwards
+        for (int state = rows.size() - 1; state >= 0; state--) {
+            String shortest = accepted.get(state);
+            for (int type = 0; type < classes; type++) {
+                int child = next[state * classes + type];
+                if (child >= 0) {
+                    shortest = shortest(shortest, completions[child]);
+                }
+            }
+            completions[state] = shortest;
+        }
+    }
+
+    /**
+     * Creates a table of the given operators, which can't contain letters,
+     * digits, quotes or whitespace.
+     */
+    public static OperatorTable of(String... operators) {
+        Set<String> distinct = new LinkedHashSet<>(Arrays.asList(operators));
+        return new OperatorTable(new ArrayList<>(distinct));
+    }
+
+    /**
+     * Returns a table with these operators and the given ones. A char which
+     * was a single char operator here stays one when an operator starting
+     * with it is added (so adding {@code ->} keeps {@code -}), while chars
+     * this table excludes (like {@code &}) stay excluded.
+     */
+    public OperatorTable with(String... operators) {
+        Set<String> distinct = new LinkedHashSet<>(this.operators);
+        for (String operator : operators) {
+            if (!operator.isEmpty() && next(0, operator.charAt(0)) < 0) {
+                distinct.add(operator.substring(0, 1));
+            }
+            distinct.add(operator);
+        }
+        return new OperatorTable(new ArrayList<>(distinct));
+    }
+
+    public List<String> getOperators() {
+        return Collections.unmodifiableList(operators);
+    }
+
+    /**
+     * Returns the state after the given char from the given state (0 being
+     * the start), or -1 if no operator continues with it.
+     */
+    int next(int state, char c) {
+        int type = type(c);
+        return type < 0 ? -1 : next[state * classes + type];
+    }
+
+    boolean accepts(int state) {
+        return accepting[state];
+    }
+
+    /**
+     * Returns how many chars past the end of a token lexing it can read: one
+     * to end it, or more when an operator has to back up from a longer one
+     * which didn't match (such as {@code <} from {@code <<=} in {@code <<x}).
+     */
+    int lookahead() {
+        return lookahead;
+    }
+
+    /**
+     * Returns the message for input which stopped matching in the given
+     * state, before reaching an operator.
+     */
+    String unterminated(int state) {
+        return "Parse exception: unterminated " + completions[state];
+    }
+
+    private int type(char c) {
+        if (c < 128) {
+            return ascii[c] - 1;
+        }
+        int index = Arrays.binarySearch(others, c);
+        return index < 0 ? -1 : classes - others.length + index;
+    }
+
+    private int[] row() {
+        int[] row = new int[classes];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    private static String shortest(String first, String second) {
+        if (first == null) {
+            return second;
+        } else if (second == null) {
+            return first;
+        }
+        return second.length() < first.length() ? second : first;
+    }
+
+}
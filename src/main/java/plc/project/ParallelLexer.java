@@ -0,0 +1,186 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Lexes a large input by splitting it into chunks which are lexed at the same
+ * time on a {@link ForkJoinPool}, then stitched back together.
+ *
+ * Chunks start at whitespace, but since a space might be inside a string each
+ * chunk is only lexed speculatively. When stitching, the sequential position
+ * (the start of the next real token) is looked up in the next chunk. If that
+ * chunk also started a token there, both lexers were in the start state at the
+ * same index, so the rest of the chunk is exactly what a sequential lex would
+ * produce. Otherwise the chunk is lexed again from the real position. Errors
+ * are only reported once stitching reaches them, so the exception thrown is
+ * always the same one {@link Lexer#lex()} would throw.
+ */
+final class ParallelLexer {
+
+    private static final int CHUNK = 1 << 16;
+
+    private final ForkJoinPool pool;
+    private final int chunk;
+
+    ParallelLexer(ForkJoinPool pool) {
+        this(pool, CHUNK);
+    }
+
+    ParallelLexer(ForkJoinPool pool, int chunk) {
+        this.pool = pool;
+        this.chunk = chunk;
+    }
+
+    List<Token> lex(String input) {
+        int count = Math.min(input.length() / chunk, pool.getParallelism() * 4);
+        if (count <= 1) {
+            return new TableLexer(new Lexer.CharStream(input, 0)).lex();
+        }
+        List<Integer> boundaries = new ArrayList<>();
+        boundaries.add(0);
+        for (int i = 1; i < count; i++) {
+            int boundary = boundary(input, (int) ((long) input.length() * i / count));
+            if (boundary > boundaries.get(boundaries.size() - 1)) {
+                boundaries.add(boundary);
+            }
+        }
+        boundaries.add(input.length());
+        List<Chunk> chunks = new ArrayList<>();
+        for (int i = 0; i + 1 < boundaries.size(); i++) {
+            chunks.add(new Chunk(input, boundaries.get(i), boundaries.get(i + 1)));
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                ForkJoinTask.invokeAll(chunks);
+            }
+        });
+        return stitch(input, chunks);
+    }
+
+    private static List<Token> stitch(String input, List<Chunk> chunks) {
+        int size = 0;
+        for (Chunk chunk : chunks) {
+            size += chunk.tokens.size();
+        }
+        List<Token> tokens = new ArrayList<>(size);
+        int position = 0;
+        for (Chunk chunk : chunks) {
+            if (position >= chunk.end) {
+                continue;
+            }
+            int first = chunk.find(position);
+            if (first >= 0) {
+                tokens.addAll(chunk.tokens.subList(first, chunk.tokens.size()));
+                if (chunk.exception != null) {
+                    throw chunk.exception;
+                }
+                position = chunk.next;
+            } else {
+                //the speculative start was inside a token, so lex this part again
+                Chunk relexed = new Chunk(input, position, chunk.end);
+                relexed.compute();
+                tokens.addAll(relexed.tokens);
+                if (relexed.exception != null) {
+                    throw relexed.exception;
+                }
+                position = relexed.next;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Returns the first line break at or after the given index, falling back
+     * to any whitespace. Only the next chunk's worth of input is searched, so
+     * a long line (or minified input) costs at most that per boundary, and
+     * without any whitespace the chunk just starts at the index itself, which
+     * stitching treats like any other speculative start.
+     */
+    private int boundary(String input, int index) {
+        int limit = (int) Math.min(input.length(), (long) index + chunk);
+        for (int i = index; i < limit; i++) {
+            if (input.charAt(i) == '\n') {
+                return i;
+            }
+        }
+        for (int i = index; i < limit; i++) {
+            char c = input.charAt(i);
+            if (c == ' ' || c == '\b' || c == '\r' || c == '\t') {
+                return i;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Lexes the tokens starting in [start, end) assuming start is between two
+     * tokens. The last token may run past end, and {@link #next} is the start
+     * of the first token after it (or the input length).
+     */
+    private static final class Chunk extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String input;
+        private final int start;
+        private final int end;
+        private final List<Token> tokens = new ArrayList<>();
+        private ParseException exception;
+        private int next;
+
+        private Chunk(String input, int start, int end) {
+            this.input = input;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            TableLexer lexer = new TableLexer(new Lexer.CharStream(input, start));
+            next = input.length();
+            try {
+                Token token;
+                while ((token = lexer.next()) != null) {
+                    if (token.getIndex() >= end) {
+                        next = token.getIndex();
+                        return;
+                    }
+                    tokens.add(token);
+                }
+            } catch (ParseException e) {
+                exception = e;
+            }
+        }
+
+        /**
+         * Returns the index of the token starting at the given position, or
+         * -1 if this chunk didn't start a token there.
+         */
+        private int find(int position) {
+            if (position == start) {
+                return 0;
+            }
+            int low = 0;
+            int high = tokens.size() - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int index = tokens.get(middle).getIndex();
+                if (index < position) {
+                    low = middle + 1;
+                } else if (index > position) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -1;
+        }
+
+    }
+
+}
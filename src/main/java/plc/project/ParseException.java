@@ -9,6 +9,16 @@ public final class ParseException extends RuntimeException {
         this.index = index;
     }
 
+    /**
+     * Creates an exception without a stack trace, which is much cheaper to
+     * construct. Used for errors collected while recovering, which are
+     * reported rather than thrown.
+     */
+    ParseException(String message, int index, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+        this.index = index;
+    }
+
     public int getIndex() {
         return index;
     }
@@ -0,0 +1,128 @@
+package plc.project;
+
+import java.util.Arrays;
+
+/**
+ * Interns the literals of {@link Token.Type#IDENTIFIER} and {@link
+ * Token.Type#OPERATOR} tokens, giving each distinct literal a small id.
+ *
+ * Lookups hash the chars directly out of the lexer's buffer (with the same
+ * hash as {@link String#hashCode()}), so a String is only created the first
+ * time a literal is seen. Every later token with that literal shares the same
+ * String instance and carries its id in {@link Token#getSymbol()}.
+ *
+ * A table from the constructor is meant for one lexer at a time, while
+ * {@link #synchronizedTable()} can be shared between lexers on any thread.
+ */
+public final class SymbolTable {
+
+    private final boolean synchronize;
+    private int[] slots = new int[64]; // id + 1, or 0 if empty
+    private String[] symbols = new String[32];
+    private int[] hashes = new int[32];
+    private int size = 0;
+
+    public SymbolTable() {
+        this(false);
+    }
+
+    private SymbolTable(boolean synchronize) {
+        this.synchronize = synchronize;
+    }
+
+    public static SymbolTable synchronizedTable() {
+        return new SymbolTable(true);
+    }
+
+    /**
+     * Returns the id of the literal in the given range of chars, adding it to
+     * the table if it hasn't been seen before.
+     */
+    public int intern(char[] chars, int offset, int length) {
+        if (synchronize) {
+            synchronized (this) {
+                return lookup(chars, offset, length);
+            }
+        }
+        return lookup(chars, offset, length);
+    }
+
+    public int intern(String symbol) {
+        return intern(symbol.toCharArray(), 0, symbol.length());
+    }
+
+    public String symbol(int id) {
+        if (synchronize) {
+            synchronized (this) {
+                return symbols[id];
+            }
+        }
+        return symbols[id];
+    }
+
+    public int size() {
+        if (synchronize) {
+            synchronized (this) {
+                return size;
+            }
+        }
+        return size;
+    }
+
+    private int lookup(char[] chars, int offset, int length) {
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        int mask = slots.length - 1;
+        int slot = mix(hash) & mask;
+        while (slots[slot] != 0) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && matches(symbols[id], chars, offset, length)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (size == symbols.length) {
+            symbols = Arrays.copyOf(symbols, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        int id = size++;
+        symbols[id] = new String(chars, offset, length);
+        hashes[id] = hash;
+        slots[slot] = id + 1;
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = mix(hashes[id]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+    private static boolean matches(String symbol, char[] chars, int offset, int length) {
+        if (symbol.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (symbol.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+}
@@ -0,0 +1,454 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A table driven version of {@link Lexer#lex()}. Instead of going through the
+ * peek/match helpers, every character is mapped to a character class and the
+ * next state is looked up in a precomputed transition table, so the inner
+ * loop is just two array reads per character. Runs of whitespace, identifier
+ * chars and plain string chars are skipped whole (see {@link CharRuns}).
+ *
+ * The operators of the {@link OperatorTable#DEFAULT} set are built into the
+ * table. A lexer with any other set switches to a copy of the table which
+ * hands every operator off to the set's trie instead.
+ *
+ * The values of numbers are accumulated into the char stream's {@link
+ * ValueBuilder} as their chars are passed, by the states between {@code
+ * ZERO_INTEGER} and {@code FRACTION}, and escapes in strings are decoded
+ * into it as each one is passed.
+ *
+ * The table is built to produce exactly the same tokens as the recursive
+ * lex methods, including their quirks (a number like {@code 10} is lexed as
+ * {@code 1} then {@code 0}), and every {@link ParseException} is thrown with
+ * the same message and index.
+ */
+final class TableLexer {
+
+    // character classes
+    private static final int OTHER = 0;
+    private static final int SPACE = 1;
+    private static final int LF = 2;
+    private static final int CR = 3;
+    private static final int CONTROL = 4; // \b and \t
+    private static final int ESCAPE_LETTER = 5; // b n r t
+    private static final int LETTER = 6;
+    private static final int ZERO = 7;
+    private static final int DIGIT = 8;
+    private static final int MINUS = 9;
+    private static final int DOT = 10;
+    private static final int IDENTIFIER_SYMBOL = 11; // _ and @
+    private static final int DOUBLE_QUOTE = 12;
+    private static final int SINGLE_QUOTE = 13;
+    private static final int BACKSLASH = 14;
+    private static final int BANG = 15;
+    private static final int EQUALS = 16;
+    private static final int AMPERSAND = 17;
+    private static final int PIPE = 18;
+    private static final int EOF = 19;
+    private static final int CLASSES = 20;
+
+    // states
+    private static final int START = 0;
+    private static final int IDENTIFIER = 1;
+    private static final int ZERO_INTEGER = 2;
+    private static final int ZERO_DOT = 3;
+    private static final int NEGATIVE = 4;
+    private static final int INTEGER = 5;
+    private static final int INTEGER_DOT = 6;
+    private static final int FRACTION = 7; // number states are ZERO_INTEGER to here
+    private static final int CHARACTER_OPEN = 8;
+    private static final int CHARACTER_ESCAPE = 9;
+    private static final int CHARACTER_BODY = 10;
+    private static final int CHARACTER_CLOSED = 11;
+    private static final int STRING_BODY = 12;
+    private static final int STRING_CONTROL = 13;
+    private static final int STRING_ESCAPE = 14;
+    private static final int STRING_CLOSED = 15;
+    private static final int BANG_OPERATOR = 16;
+    private static final int EQUALS_OPERATOR = 17;
+    private static final int AND_OPERATOR = 18;
+    private static final int OR_OPERATOR = 19;
+    private static final int OPERATOR = 20;
+    private static final int SKIP_DIGITS = 21;
+    private static final int SKIP_CHARACTER = 22;
+    private static final int STATES = 23;
+
+    // actions, stored as negative table entries
+    private static final int FINISH = -1;
+    private static final int EMIT = -2; // - type ordinal
+    private static final int OPERATORS = -14; // match in the operator table
+    private static final int RESTART = -15; // back to START without consuming
+    private static final int ERROR = -16; // - message index
+
+    private static final String[] MESSAGES = {
+            "Parse exception: leading zeros",
+            "Parse exception",
+            "Parse exception: empty character at",
+            "Parse exception: invalid escape",
+            "Parse exception: unterminated character quote",
+            "String on different line",
+            "Parse exception: unterminated quotes",
+            "Parse exception: unterminated &&",
+            "Parse exception: unterminated ||",
+    };
+
+    private static final Token.Type[] TYPES = Token.Type.values();
+    private static final byte[] CLASS = new byte[128];
+    private static final int[] TABLE = new int[STATES * CLASSES];
+    private static final int[] CUSTOM_TABLE;
+    private static final int[] RECOVER = new int[STATES];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            CLASS[c] = LETTER;
+            CLASS[Character.toUpperCase(c)] = LETTER;
+        }
+        for (char c : "bnrt".toCharArray()) {
+            CLASS[c] = ESCAPE_LETTER;
+        }
+        for (char c = '1'; c <= '9'; c++) {
+            CLASS[c] = DIGIT;
+        }
+        CLASS[' '] = SPACE;
+        CLASS['\n'] = LF;
+        CLASS['\r'] = CR;
+        CLASS['\b'] = CONTROL;
+        CLASS['\t'] = CONTROL;
+        CLASS['0'] = ZERO;
+        CLASS['-'] = MINUS;
+        CLASS['.'] = DOT;
+        CLASS['_'] = IDENTIFIER_SYMBOL;
+        CLASS['@'] = IDENTIFIER_SYMBOL;
+        CLASS['"'] = DOUBLE_QUOTE;
+        CLASS['\''] = SINGLE_QUOTE;
+        CLASS['\\'] = BACKSLASH;
+        CLASS['!'] = BANG;
+        CLASS['='] = EQUALS;
+        CLASS['&'] = AMPERSAND;
+        CLASS['|'] = PIPE;
+
+        // anything not letter, digit or quote starts a single char operator
+        fill(START, OPERATOR);
+        on(START, START, SPACE, LF, CR, CONTROL);
+        on(START, IDENTIFIER, LETTER, ESCAPE_LETTER);
+        on(START, ZERO_INTEGER, ZERO);
+        on(START, INTEGER, DIGIT);
+        on(START, NEGATIVE, MINUS);
+        on(START, CHARACTER_OPEN, SINGLE_QUOTE);
+        on(START, STRING_BODY, DOUBLE_QUOTE);
+        on(START, BANG_OPERATOR, BANG);
+        on(START, EQUALS_OPERATOR, EQUALS);
+        on(START, AND_OPERATOR, AMPERSAND);
+        on(START, OR_OPERATOR, PIPE);
+        on(START, FINISH, EOF);
+
+        fill(IDENTIFIER, emit(Token.Type.IDENTIFIER));
+        on(IDENTIFIER, IDENTIFIER, LETTER, ESCAPE_LETTER, ZERO, DIGIT, MINUS, IDENTIFIER_SYMBOL);
+
+        // numbers only continue over 1-9 before the decimal point
+        fill(ZERO_INTEGER, emit(Token.Type.INTEGER));
+        on(ZERO_INTEGER, error(0), ZERO, DIGIT, MINUS);
+        on(ZERO_INTEGER, ZERO_DOT, DOT);
+        fill(ZERO_DOT, error(1));
+        on(ZERO_DOT, FRACTION, ZERO, DIGIT);
+        fill(NEGATIVE, emit(Token.Type.OPERATOR));
+        on(NEGATIVE, INTEGER, DIGIT);
+        fill(INTEGER, emit(Token.Type.INTEGER));
+        on(INTEGER, INTEGER, DIGIT);
+        on(INTEGER, INTEGER_DOT, DOT);
+        fill(INTEGER_DOT, error(1));
+        on(INTEGER_DOT, FRACTION, ZERO, DIGIT);
+        fill(FRACTION, emit(Token.Type.DECIMAL));
+        on(FRACTION, FRACTION, ZERO, DIGIT);
+
+        fill(CHARACTER_OPEN, CHARACTER_BODY);
+        on(CHARACTER_OPEN, error(2), SINGLE_QUOTE);
+        on(CHARACTER_OPEN, CHARACTER_ESCAPE, BACKSLASH);
+        on(CHARACTER_OPEN, error(4), LF, CR, EOF);
+        fill(CHARACTER_ESCAPE, error(3));
+        on(CHARACTER_ESCAPE, CHARACTER_BODY, ESCAPE_LETTER);
+        fill(CHARACTER_BODY, error(4));
+        on(CHARACTER_BODY, CHARACTER_CLOSED, SINGLE_QUOTE);
+        fill(CHARACTER_CLOSED, emit(Token.Type.CHARACTER));
+
+        // a run of control chars is skipped whole, even if it has a newline
+        fill(STRING_BODY, STRING_BODY);
+        on(STRING_BODY, STRING_CLOSED, DOUBLE_QUOTE);
+        on(STRING_BODY, error(5), LF);
+        on(STRING_BODY, STRING_CONTROL, CR, CONTROL);
+        on(STRING_BODY, STRING_ESCAPE, BACKSLASH);
+        on(STRING_BODY, error(6), EOF);
+        System.arraycopy(TABLE, STRING_BODY * CLASSES, TABLE, STRING_CONTROL * CLASSES, CLASSES);
+        on(STRING_CONTROL, STRING_CONTROL, LF, CR, CONTROL);
+        fill(STRING_ESCAPE, error(3));
+        on(STRING_ESCAPE, STRING_BODY, ESCAPE_LETTER);
+        fill(STRING_CLOSED, emit(Token.Type.STRING));
+
+        fill(BANG_OPERATOR, emit(Token.Type.OPERATOR));
+        on(BANG_OPERATOR, OPERATOR, EQUALS);
+        fill(EQUALS_OPERATOR, emit(Token.Type.OPERATOR));
+        on(EQUALS_OPERATOR, OPERATOR, EQUALS);
+        fill(AND_OPERATOR, error(7));
+        on(AND_OPERATOR, OPERATOR, AMPERSAND);
+        fill(OR_OPERATOR, error(8));
+        on(OR_OPERATOR, OPERATOR, PIPE);
+        fill(OPERATOR, emit(Token.Type.OPERATOR));
+
+        // where to continue (without consuming) after an error when recovering
+        Arrays.fill(RECOVER, RESTART);
+        RECOVER[ZERO_INTEGER] = SKIP_DIGITS;
+        RECOVER[CHARACTER_OPEN] = SKIP_CHARACTER;
+        RECOVER[CHARACTER_ESCAPE] = SKIP_CHARACTER;
+        RECOVER[CHARACTER_BODY] = SKIP_CHARACTER;
+        RECOVER[STRING_ESCAPE] = STRING_BODY;
+        fill(SKIP_DIGITS, RESTART);
+        on(SKIP_DIGITS, SKIP_DIGITS, ZERO, DIGIT);
+        fill(SKIP_CHARACTER, SKIP_CHARACTER);
+        on(SKIP_CHARACTER, START, SINGLE_QUOTE, LF, CR);
+        on(SKIP_CHARACTER, FINISH, EOF);
+
+        // the same, but with anything which would start an operator deferred
+        // to an operator table
+        CUSTOM_TABLE = TABLE.clone();
+        for (int c = 0; c < CLASSES; c++) {
+            int action = TABLE[START * CLASSES + c];
+            if (action == OPERATOR || action == BANG_OPERATOR || action == EQUALS_OPERATOR
+                    || action == AND_OPERATOR || action == OR_OPERATOR) {
+                CUSTOM_TABLE[START * CLASSES + c] = OPERATORS;
+            }
+            if (TABLE[NEGATIVE * CLASSES + c] == emit(Token.Type.OPERATOR)) {
+                CUSTOM_TABLE[NEGATIVE * CLASSES + c] = OPERATORS;
+            }
+        }
+    }
+
+    private final Lexer.CharStream chars;
+    private final OperatorTable operators;
+    private final int[] table;
+    private List<ParseException> errors = null;
+    private int start = 0;
+    private int end = 0;
+
+    TableLexer(Lexer.CharStream chars) {
+        this(chars, OperatorTable.DEFAULT);
+    }
+
+    TableLexer(Lexer.CharStream chars, OperatorTable operators) {
+        this.chars = chars;
+        this.operators = operators;
+        this.table = operators == OperatorTable.DEFAULT ? TABLE : CUSTOM_TABLE;
+    }
+
+    List<Token> lex() {
+        List<Token> tokens = new ArrayList<>();
+        Token token;
+        while ((token = next()) != null) {
+            tokens.add(token);
+        }
+        return tokens;
+    }
+
+    /**
+     * Switches to recovering from errors instead of throwing them. Each error
+     * is added to the list as a stackless {@link ParseException}, and lexing
+     * carries on from a point depending on where the error was: after the
+     * rest of the digits for a leading zero, past the closing quote (or at the
+     * end of the line) for a bad character literal, inside the string at the
+     * char after the backslash for an invalid escape, or otherwise from the
+     * char the error was at, dropping the partial token.
+     */
+    void recover(List<ParseException> errors) {
+        this.errors = errors;
+    }
+
+    /**
+     * Lexes the next token, skipping leading whitespace, or returns null once
+     * the input has been consumed.
+     */
+    Token next() {
+        int type = scan();
+        return type < 0 ? null : token(type);
+    }
+
+    /**
+     * Creates the token just scanned, of the type {@link #scan()} returned.
+     */
+    Token token(int type) {
+        return chars.token(TYPES[type], start, end);
+    }
+
+    /**
+     * Scans the next token without creating it, returning the ordinal of its
+     * type or -1 at the end of the input. The token's range is available from
+     * {@link #start()} and {@link #end()}, and its chars are still in the char
+     * stream's buffer until the next call.
+     *
+     * The loop works on local copies of the char stream's buffer and only
+     * goes back to the stream when the buffer runs out, refilling it while
+     * keeping the token matched so far.
+     */
+    int scan() {
+        Lexer.CharStream chars = this.chars;
+        ValueBuilder values = chars.values;
+        int[] table = this.table;
+        char[] buffer = chars.buffer;
+        int base = chars.base;
+        int limit = chars.limit;
+        int position = chars.index - base;
+        int start = position;
+        int state = START;
+        while (true) {
+            int action;
+            if (position < limit) {
+                char c = buffer[position];
+                action = table[state * CLASSES + (c < 128 ? CLASS[c] : OTHER)];
+            } else {
+                boolean filled = chars.fill(base + start);
+                int shift = chars.base - base;
+                buffer = chars.buffer;
+                base = chars.base;
+                limit = chars.limit;
+                position -= shift;
+                start -= shift;
+                if (filled) {
+                    continue;
+                }
+                action = table[state * CLASSES + EOF];
+            }
+            if (action == OPERATORS) {
+                //walk the operator trie from the start of the token, keeping
+                //the longest operator passed
+                int node = 0;
+                int longest = 0;
+                position = start;
+                while (true) {
+                    if (position >= limit) {
+                        boolean filled = chars.fill(base + start);
+                        int shift = chars.base - base;
+                        buffer = chars.buffer;
+                        base = chars.base;
+                        limit = chars.limit;
+                        position -= shift;
+                        start -= shift;
+                        if (filled) {
+                            continue;
+                        }
+                        break;
+                    }
+                    int next = operators.next(node, buffer[position]);
+                    if (next < 0) {
+                        break;
+                    }
+                    node = next;
+                    position++;
+                    if (operators.accepts(node)) {
+                        longest = position - start;
+                    }
+                }
+                if (position == start) {
+                    //not the start of any operator, so a single char one
+                    longest = 1;
+                } else if (longest == 0) {
+                    if (errors != null) {
+                        errors.add(new ParseException(operators.unterminated(node), base + position, false));
+                        start = position;
+                        state = START;
+                        continue;
+                    }
+                    chars.index = base + position;
+                    chars.length = 0;
+                    throw new ParseException(operators.unterminated(node), base + position);
+                }
+                position = start + longest;
+                action = emit(Token.Type.OPERATOR);
+            }
+            if (action >= 0) {
+                if (action >= ZERO_INTEGER && action <= FRACTION) {
+                    if (state == START) {
+                        values.startNumber();
+                    }
+                    values.number(buffer[position]);
+                } else if (action == STRING_BODY) {
+                    if (state == START) {
+                        values.startString(base + position + 1);
+                    } else if (state == STRING_ESCAPE) {
+                        values.escape(buffer, base, base + position - 1, buffer[position]);
+                    }
+                }
+                position++;
+                //skip the rest of a run which stays in the same state all at once
+                if (action == START) {
+                    position = CharRuns.whitespace(buffer, position, limit);
+                    start = position;
+                } else if (action == IDENTIFIER) {
+                    position = CharRuns.identifier(buffer, position, limit);
+                } else if (action == STRING_BODY) {
+                    position = CharRuns.stringBody(buffer, position, limit);
+                }
+                state = action;
+                continue;
+            } else if (action == RESTART) {
+                start = position;
+                state = START;
+                continue;
+            } else if (action <= ERROR && errors != null) {
+                errors.add(new ParseException(MESSAGES[ERROR - action], base + position, false));
+                if (state == STRING_ESCAPE) {
+                    values.dropEscape(buffer, base, base + position - 1);
+                }
+                if (RECOVER[state] == RESTART) {
+                    start = position;
+                    state = START;
+                } else {
+                    state = RECOVER[state];
+                }
+                continue;
+            }
+            chars.index = base + position;
+            chars.length = 0;
+            if (action == FINISH) {
+                this.start = base + start;
+                this.end = this.start;
+                return -1;
+            } else if (action > ERROR) {
+                this.start = base + start;
+                this.end = base + position;
+                return EMIT - action;
+            } else {
+                throw new ParseException(MESSAGES[ERROR - action], base + position);
+            }
+        }
+    }
+
+    int start() {
+        return start;
+    }
+
+    int end() {
+        return end;
+    }
+
+    private static int emit(Token.Type type) {
+        return EMIT - type.ordinal();
+    }
+
+    private static int error(int message) {
+        return ERROR - message;
+    }
+
+    private static void fill(int state, int action) {
+        for (int c = 0; c < CLASSES; c++) {
+            TABLE[state * CLASSES + c] = action;
+        }
+    }
+
+    private static void on(int state, int action, int... classes) {
+        for (int c : classes) {
+            TABLE[state * CLASSES + c] = action;
+        }
+    }
+
+}
@@ -1,5 +1,8 @@
 package plc.project;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
 public final class Token {
 
     public enum Type {
@@ -14,11 +17,32 @@ public final class Token {
     private final Type type;
     private final String literal;
     private final int index;
+    private final int symbol;
+    private final int keyword;
+    private final Object value;
 
     public Token(Type type, String literal, int index) {
+        this(type, literal, index, -1);
+    }
+
+    public Token(Type type, String literal, int index, int symbol) {
+        this(type, literal, index, symbol, -1);
+    }
+
+    public Token(Type type, String literal, int index, int symbol, int keyword) {
+        this(type, literal, index, symbol, keyword, value(type, literal));
+    }
+
+    /**
+     * Creates a token with the value its lexer built while scanning it.
+     */
+    Token(Type type, String literal, int index, int symbol, int keyword, Object value) {
         this.type = type;
         this.literal = literal;
         this.index = index;
+        this.symbol = symbol;
+        this.keyword = keyword;
+        this.value = value;
     }
 
     public Type getType() {
@@ -33,6 +57,49 @@ public final class Token {
         return index;
     }
 
+    /**
+     * Returns the id of the literal in the {@link SymbolTable} used while
+     * lexing, or -1 if the literal wasn't interned.
+     */
+    public int getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * Returns the id of the literal in the {@link KeywordTable} used while
+     * lexing, or -1 if it isn't a keyword (or there wasn't a table).
+     */
+    public int getKeyword() {
+        return keyword;
+    }
+
+    /**
+     * Returns the value of the literal: a {@link Long} for an {@link
+     * Type#INTEGER} (or a {@link BigInteger} if it doesn't fit), a {@link
+     * BigDecimal} for a {@link Type#DECIMAL}, the decoded {@link
+     * CharSequence} for a {@link Type#STRING} and {@link Character} for a
+     * {@link Type#CHARACTER}, or null otherwise.
+     *
+     * A lexer builds the value as it scans the literal, so it's never parsed
+     * again. Tokens created any other way (such as by a {@link TokenBuffer})
+     * parse their literal when created. A string is always a {@link
+     * CharSequence} which isn't a {@link String}, so compare it with {@link
+     * String#contentEquals(CharSequence)}. Without escapes it's a view of the
+     * input inside the quotes (when lexed from a String, so the token keeps
+     * the input reachable) or else of the literal, rather than a copy.
+     */
+    public Object getValue() {
+        return value;
+    }
+
+    /**
+     * Returns this token moved by the given number of chars, keeping its
+     * symbol, keyword and value.
+     */
+    Token shift(int delta) {
+        return new Token(type, literal, index + delta, symbol, keyword, value);
+    }
+
     @Override
     public boolean equals(Object obj) {
         return obj instanceof Token
@@ -46,4 +113,94 @@ public final class Token {
         return type + "=" + literal + "@" + index;
     }
 
+    private static Object value(Type type, String literal) {
+        switch (type) {
+            case INTEGER:
+            case DECIMAL:
+                return number(type, literal);
+            case STRING:
+                return string(literal);
+            case CHARACTER:
+                return character(literal);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Parses a number literal for a token which wasn't lexed, the same way
+     * {@link ValueBuilder} accumulates one while lexing, except that anything
+     * which isn't a number has no value.
+     */
+    private static Object number(Type type, String literal) {
+        int length = literal.length();
+        boolean negative = length > 0 && literal.charAt(0) == '-';
+        long unscaled = 0;
+        int scale = -1;
+        boolean overflow = length == (negative ? 1 : 0);
+        for (int i = negative ? 1 : 0; i < length && !overflow; i++) {
+            char c = literal.charAt(i);
+            if (c == '.' && type == Type.DECIMAL && scale < 0) {
+                scale = 0;
+                continue;
+            }
+            int digit = c - '0';
+            if (digit < 0 || digit > 9 || unscaled < Long.MIN_VALUE / 10
+                    || unscaled == Long.MIN_VALUE / 10 && digit > 8) {
+                overflow = true;
+            } else {
+                unscaled = unscaled * 10 - digit;
+                if (scale >= 0) {
+                    scale++;
+                }
+            }
+        }
+        if (overflow || !negative && unscaled == Long.MIN_VALUE) {
+            try {
+                return type == Type.INTEGER ? new BigInteger(literal) : new BigDecimal(literal);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        long value = negative ? unscaled : -unscaled;
+        return type == Type.INTEGER ? (Object) value : BigDecimal.valueOf(value, Math.max(scale, 0));
+    }
+
+    /**
+     * Decodes the escapes in a string literal for a token which wasn't lexed,
+     * or makes a view of the literal if there aren't any.
+     */
+    private static CharSequence string(String literal) {
+        int end = literal.length() - 1;
+        if (end < 1) {
+            return null;
+        }
+        int escape = literal.indexOf('\\', 1);
+        if (escape < 0 || escape >= end) {
+            return new CharSlice(literal, 1, end);
+        }
+        StringBuilder decoded = new StringBuilder(end - 1).append(literal, 1, escape);
+        for (int i = escape; i < end; i++) {
+            char c = literal.charAt(i);
+            if (c == '\\') {
+                if (i + 1 == end || "bnrt".indexOf(literal.charAt(i + 1)) < 0) {
+                    //like recovering from an invalid escape, which drops the backslash
+                    continue;
+                }
+                c = ValueBuilder.unescape(literal.charAt(++i));
+            }
+            decoded.append(c);
+        }
+        return new CharSlice(decoded.toString());
+    }
+
+    private static Character character(String literal) {
+        if (literal.length() == 3) {
+            return literal.charAt(1);
+        } else if (literal.length() == 4 && literal.charAt(1) == '\\') {
+            return ValueBuilder.unescape(literal.charAt(2));
+        }
+        return null;
+    }
+
 }
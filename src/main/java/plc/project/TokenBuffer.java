@@ -0,0 +1,132 @@
+package plc.project;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * A compact list of tokens stored as columns over the original input: a
+ * {@code byte} type, and an {@code int} start index and length for each token.
+ *
+ * Nothing is allocated per token while lexing. Literals are only substrings
+ * of the input once asked for through {@link #getLiteral(int)}, and {@link
+ * #get(int)} creates the {@link Token} on demand, so the buffer can be used
+ * anywhere a {@code List<Token>} is expected (including equality with one).
+ */
+public final class TokenBuffer extends AbstractList<Token> implements RandomAccess {
+
+    private static final Token.Type[] TYPES = Token.Type.values();
+
+    private String input;
+    private byte[] types;
+    private int[] starts;
+    private int[] lengths;
+    private int size = 0;
+
+    TokenBuffer(String input, int capacity) {
+        this.input = input;
+        this.types = new byte[capacity];
+        this.starts = new int[capacity];
+        this.lengths = new int[capacity];
+    }
+
+    /**
+     * Lexes the input with the table engine directly into a new buffer.
+     */
+    static TokenBuffer lex(String input) {
+        TokenBuffer tokens = new TokenBuffer(input, Math.max(16, input.length() / 4));
+        tokens.lex(new TableLexer(new Lexer.CharStream(input)));
+        return tokens;
+    }
+
+    /**
+     * Adds every remaining token from the lexer, which has to be lexing this
+     * buffer's input.
+     */
+    void lex(TableLexer lexer) {
+        int type;
+        while ((type = lexer.scan()) >= 0) {
+            add(type, lexer.start(), lexer.end() - lexer.start());
+        }
+    }
+
+    /**
+     * Empties the buffer to be filled again from a new input, keeping the
+     * columns already allocated.
+     */
+    void clear(String input) {
+        this.input = input;
+        this.size = 0;
+    }
+
+    void add(int type, int start, int length) {
+        if (size == types.length) {
+            int capacity = Math.max(16, size + (size >> 1));
+            types = Arrays.copyOf(types, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+        types[size] = (byte) type;
+        starts[size] = start;
+        lengths[size] = length;
+        size++;
+    }
+
+    public String getInput() {
+        return input;
+    }
+
+    public Token.Type getType(int index) {
+        return TYPES[types[checkIndex(index)]];
+    }
+
+    public int getIndex(int index) {
+        return starts[checkIndex(index)];
+    }
+
+    public int getLength(int index) {
+        return lengths[checkIndex(index)];
+    }
+
+    public String getLiteral(int index) {
+        int start = getIndex(index);
+        return input.substring(start, start + lengths[index]);
+    }
+
+    @Override
+    public Token get(int index) {
+        return new Token(getType(index), getLiteral(index), starts[index]);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of tokens the columns have room for.
+     */
+    int capacity() {
+        return types.length;
+    }
+
+    /**
+     * Shrinks the columns down to the tokens in them, for a buffer which is
+     * kept around and won't have any more added.
+     */
+    void trim() {
+        if (size < types.length) {
+            types = Arrays.copyOf(types, size);
+            starts = Arrays.copyOf(starts, size);
+            lengths = Arrays.copyOf(lengths, size);
+        }
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size + ".");
+        }
+        return index;
+    }
+
+}
@@ -0,0 +1,193 @@
+package plc.project;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A cache of lexed inputs, for pipelines which lex the same templates or
+ * unchanged files over and over.
+ *
+ * Inputs are looked up by a 64-bit hash of their contents and the result is
+ * the {@link TokenBuffer} lexed the first time, which can't be modified
+ * through its public methods so is shared between every caller. A hit costs
+ * hashing the input plus a comparison against the cached input (so a hash
+ * collision can never return the wrong tokens), rather than lexing it again.
+ *
+ * The cache is split into segments, each an LRU map under its own lock, so
+ * lookups from many threads rarely contend. Memory is bounded by an estimate
+ * of each entry's size (the input's chars plus the token columns, which are
+ * trimmed to the tokens they hold), with the least recently used entries of a
+ * segment evicted once it is over its share of the limit. Inputs which fail
+ * to lex aren't cached.
+ */
+public final class TokenCache {
+
+    private static final int SEGMENTS = 16;
+    private static final long K1 = 0x9E3779B97F4A7C15L;
+    private static final long K2 = 0xC2B2AE3D27D4EB4FL;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final long segmentBytes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a cache holding roughly up to the given number of bytes of
+     * inputs and tokens.
+     */
+    public TokenCache(long maxBytes) {
+        this.segmentBytes = maxBytes / SEGMENTS;
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    /**
+     * Returns the tokens of the input, lexed with the table engine, from the
+     * cache if the same input was lexed before.
+     */
+    public TokenBuffer lex(String input) {
+        long hash = hash(input);
+        Segment segment = segments[(int) (hash >>> 60)];
+        synchronized (segment) {
+            Entry entry = segment.get(hash);
+            if (entry != null && entry.tokens.getInput().equals(input)) {
+                hits.increment();
+                return entry.tokens;
+            }
+        }
+        misses.increment();
+        TokenBuffer tokens = Lexer.lexBuffer(input);
+        tokens.trim();
+        long bytes = weigh(tokens);
+        if (bytes <= segmentBytes) {
+            synchronized (segment) {
+                Entry previous = segment.put(hash, new Entry(tokens, bytes));
+                if (previous != null) {
+                    segment.bytes -= previous.bytes;
+                }
+                segment.bytes += bytes;
+                Iterator<Entry> eldest = segment.values().iterator();
+                while (segment.bytes > segmentBytes) {
+                    segment.bytes -= eldest.next().bytes;
+                    eldest.remove();
+                    evictions.increment();
+                }
+            }
+        }
+        return tokens;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns the fraction of lookups which were hits, or 0 before any.
+     */
+    public double getHitRate() {
+        long hits = getHits();
+        long total = hits + getMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the estimated size in bytes of everything in the cache.
+     */
+    public long getBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                bytes += segment.bytes;
+            }
+        }
+        return bytes;
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+                segment.bytes = 0;
+            }
+        }
+    }
+
+    /**
+     * Hashes the input four chars at a time, which is much faster than one
+     * multiply per char and mixes well enough to key the cache by.
+     */
+    static long hash(String input) {
+        int length = input.length();
+        long hash = length * K1;
+        int i = 0;
+        for (; i + 4 <= length; i += 4) {
+            long word = input.charAt(i)
+                    | (long) input.charAt(i + 1) << 16
+                    | (long) input.charAt(i + 2) << 32
+                    | (long) input.charAt(i + 3) << 48;
+            hash = Long.rotateLeft(hash ^ word * K2, 31) * K1;
+        }
+        for (; i < length; i++) {
+            hash = Long.rotateLeft(hash ^ input.charAt(i) * K2, 31) * K1;
+        }
+        hash ^= hash >>> 33;
+        hash *= K2;
+        return hash ^ hash >>> 29;
+    }
+
+    /**
+     * Estimates the memory held by an entry from the length of the input and
+     * the capacity of the token columns, which can be well over the number
+     * of tokens until the buffer is trimmed.
+     */
+    private static long weigh(TokenBuffer tokens) {
+        return 64 + 2L * tokens.getInput().length() + 9L * tokens.capacity();
+    }
+
+    private static final class Entry {
+
+        private final TokenBuffer tokens;
+        private final long bytes;
+
+        private Entry(TokenBuffer tokens, long bytes) {
+            this.tokens = tokens;
+            this.bytes = bytes;
+        }
+
+    }
+
+    private static final class Segment extends LinkedHashMap<Long, Entry> {
+
+        private static final long serialVersionUID = 1L;
+
+        private long bytes = 0;
+
+        private Segment() {
+            super(16, 0.75f, true);
+        }
+
+    }
+
+}
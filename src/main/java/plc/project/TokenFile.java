@@ -0,0 +1,413 @@
+package plc.project;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.zip.CRC32;
+
+/**
+ * A compact binary file of lexed tokens, so a source which hasn't changed can
+ * be reloaded instead of lexed again.
+ *
+ * The file starts with a magic number, the format {@link #VERSION}, and the
+ * hash, length and SHA-256 digest of the source the tokens were lexed from.
+ * Next is a pool of the distinct literals, each a varint length followed by
+ * its chars as varints, then one pair of varints per token: the literal's
+ * pool id shifted over the type ordinal, and the gap between the end of the
+ * previous token and the start of this one. After the tokens is an index of
+ * every 64th token, with its offset in the file and the end of the token
+ * before it, and the file ends with a CRC32 of everything before it.
+ *
+ * Reading maps the file, checks the checksum and finds where each literal in
+ * the pool starts. Tokens are decoded into columns a block of 64 at a time,
+ * from the index, when one in the block is first asked for, literals are only
+ * decoded when asked for and {@link Token}s are only created by {@link
+ * #get(int)}. A file is only valid for a source it {@link #matches(String)},
+ * which {@link #load(Path, String)} checks.
+ */
+public final class TokenFile extends AbstractList<Token> implements RandomAccess {
+
+    public static final int VERSION = 2;
+
+    private static final int MAGIC = 0x504C4354; // PLCT
+    private static final int DIGEST = 32;
+    private static final int HEADER = 28 + DIGEST;
+    private static final int BLOCK_SHIFT = 6;
+    private static final int BLOCK = 1 << BLOCK_SHIFT;
+    private static final Token.Type[] TYPES = Token.Type.values();
+
+    private final ByteBuffer buffer;
+    private final long sourceHash;
+    private final int sourceLength;
+    private final byte[] sourceDigest = new byte[DIGEST];
+    private final int size;
+    private final int[] literals; // pool offsets
+    private final int[] literalLengths;
+    private final String[] decoded;
+    private final int indexOffset;
+    private final int[] blockOffsets;
+    private final int[] blockEnds;
+    private final Block[] blocks;
+
+    private TokenFile(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER + 4 || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a token file.");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported token file version " + buffer.getInt(4) + ".");
+        }
+        CRC32 crc = new CRC32();
+        ByteBuffer contents = buffer.duplicate();
+        contents.position(0).limit(buffer.capacity() - 4);
+        crc.update(contents);
+        if ((int) crc.getValue() != buffer.getInt(buffer.capacity() - 4)) {
+            throw new IOException("Token file checksum mismatch.");
+        }
+        sourceHash = buffer.getLong(8);
+        sourceLength = buffer.getInt(16);
+        size = buffer.getInt(20);
+        int pool = buffer.getInt(24);
+        if (size < 0 || pool < 0 || size > buffer.capacity() || pool > buffer.capacity()) {
+            throw new IOException("Corrupt token file.");
+        }
+        ByteBuffer header = buffer.duplicate();
+        header.position(28);
+        header.get(sourceDigest);
+        int count = (size + BLOCK - 1) >>> BLOCK_SHIFT;
+        indexOffset = buffer.capacity() - 4 - 8 * count;
+        if (indexOffset < HEADER) {
+            throw new IOException("Corrupt token file.");
+        }
+        ByteBuffer in = buffer.duplicate();
+        in.position(HEADER).limit(indexOffset);
+        try {
+            literals = new int[pool];
+            literalLengths = new int[pool];
+            for (int i = 0; i < pool; i++) {
+                literals[i] = in.position();
+                literalLengths[i] = readVarint(in);
+                for (int c = 0; c < literalLengths[i]; c++) {
+                    readVarint(in);
+                }
+            }
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            throw new IOException("Corrupt token file.", e);
+        }
+        decoded = new String[pool];
+        blockOffsets = new int[count];
+        blockEnds = new int[count];
+        blocks = new Block[count];
+        int offset = in.position();
+        int end = 0;
+        for (int i = 0; i < count; i++) {
+            blockOffsets[i] = buffer.getInt(indexOffset + 8 * i);
+            blockEnds[i] = buffer.getInt(indexOffset + 8 * i + 4);
+            if (blockOffsets[i] < offset || blockOffsets[i] > indexOffset || blockEnds[i] < end) {
+                throw new IOException("Corrupt token file.");
+            }
+            offset = blockOffsets[i];
+            end = blockEnds[i];
+        }
+    }
+
+    /**
+     * Writes the tokens lexed from the given source to a file. The file is
+     * written next to the path first and then moved over it, so a {@link
+     * TokenFile} still mapping the old file keeps reading it unchanged.
+     */
+    public static void write(Path path, String source, List<Token> tokens) throws IOException {
+        Output out = new Output(HEADER + 4 * tokens.size());
+        out.putInt(MAGIC);
+        out.putInt(VERSION);
+        out.putLong(TokenCache.hash(source));
+        out.putInt(source.length());
+        out.putInt(tokens.size());
+        out.putInt(0); // pool size, filled in below
+        for (byte b : digest(source)) {
+            out.put(b);
+        }
+        Map<String, Integer> pool = new HashMap<>();
+        int[] ids = new int[tokens.size()];
+        for (int i = 0; i < tokens.size(); i++) {
+            String literal = tokens.get(i).getLiteral();
+            Integer id = pool.get(literal);
+            if (id == null) {
+                id = pool.size();
+                pool.put(literal, id);
+                out.putVarint(literal.length());
+                for (int c = 0; c < literal.length(); c++) {
+                    out.putVarint(literal.charAt(c));
+                }
+            }
+            ids[i] = id;
+        }
+        out.setInt(24, pool.size());
+        int[] index = new int[2 * ((tokens.size() + BLOCK - 1) >>> BLOCK_SHIFT)];
+        int end = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            if (token.getIndex() < end) {
+                throw new IllegalArgumentException("Token " + token + " overlaps the previous token.");
+            }
+            if ((i & BLOCK - 1) == 0) {
+                index[2 * (i >>> BLOCK_SHIFT)] = out.size;
+                index[2 * (i >>> BLOCK_SHIFT) + 1] = end;
+            }
+            out.putVarint(ids[i] << 3 | token.getType().ordinal());
+            out.putVarint(token.getIndex() - end);
+            end = token.getIndex() + token.getLiteral().length();
+        }
+        for (int value : index) {
+            out.putInt(value);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(out.bytes, 0, out.size);
+        out.putInt((int) crc.getValue());
+        Path directory = path.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(directory, path.getFileName() + ".", ".tmp");
+        try {
+            Files.write(temp, Arrays.copyOf(out.bytes, out.size));
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * Maps and validates a token file, throwing an {@link IOException} if it
+     * isn't one, is from another version or fails its checksum.
+     */
+    public static TokenFile read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new TokenFile(buffer);
+        }
+    }
+
+    /**
+     * Returns the tokens of the source from the token file at the given path
+     * if it was written for this exact source, otherwise lexes the source
+     * with the table engine and writes the file for next time.
+     */
+    public static List<Token> load(Path path, String source) throws IOException {
+        try {
+            TokenFile file = read(path);
+            if (file.matches(source)) {
+                return file;
+            }
+        } catch (NoSuchFileException e) {
+            //nothing cached yet
+        } catch (IOException e) {
+            //stale or corrupt, so it's replaced below
+        }
+        TokenBuffer tokens = Lexer.lexBuffer(source);
+        write(path, source, tokens);
+        return tokens;
+    }
+
+    /**
+     * Returns true if the tokens were lexed from the given source. The length
+     * and 64-bit hash rule out most other sources cheaply, but as the hash
+     * isn't collision resistant a match is confirmed by the SHA-256 digest,
+     * so another source with the same hash can't get these tokens.
+     */
+    public boolean matches(String source) {
+        return source.length() == sourceLength && TokenCache.hash(source) == sourceHash
+                && MessageDigest.isEqual(digest(source), sourceDigest);
+    }
+
+    public long getSourceHash() {
+        return sourceHash;
+    }
+
+    public Token.Type getType(int index) {
+        return TYPES[block(index).types[index & BLOCK - 1]];
+    }
+
+    public int getIndex(int index) {
+        return block(index).starts[index & BLOCK - 1];
+    }
+
+    public int getLength(int index) {
+        return literalLengths[block(index).ids[index & BLOCK - 1]];
+    }
+
+    public String getLiteral(int index) {
+        int id = block(index).ids[index & BLOCK - 1];
+        String literal = decoded[id];
+        if (literal == null) {
+            ByteBuffer in = buffer.duplicate();
+            in.position(literals[id]);
+            char[] chars = new char[readVarint(in)];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = (char) readVarint(in);
+            }
+            literal = new String(chars);
+            decoded[id] = literal;
+        }
+        return literal;
+    }
+
+    @Override
+    public Token get(int index) {
+        return new Token(getType(index), getLiteral(index), getIndex(index));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the block holding the token at the given index, decoding it
+     * from the file the first time. Like literals, a block decoded by two
+     * threads at once is just decoded twice.
+     */
+    private Block block(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size + ".");
+        }
+        int number = index >>> BLOCK_SHIFT;
+        Block block = blocks[number];
+        if (block == null) {
+            ByteBuffer in = buffer.duplicate();
+            in.position(blockOffsets[number]).limit(indexOffset);
+            try {
+                block = new Block(in, Math.min(BLOCK, size - (number << BLOCK_SHIFT)), blockEnds[number]);
+            } catch (BufferUnderflowException e) {
+                throw new UncheckedIOException(new IOException("Corrupt token file.", e));
+            }
+            blocks[number] = block;
+        }
+        return block;
+    }
+
+    /**
+     * Returns the SHA-256 digest of the chars of a source.
+     */
+    private static byte[] digest(String source) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required to be supported.", e);
+        }
+        byte[] bytes = new byte[2 * Math.min(source.length(), 4096)];
+        for (int start = 0; start < source.length(); start += bytes.length / 2) {
+            int end = Math.min(source.length(), start + bytes.length / 2);
+            for (int i = start; i < end; i++) {
+                char c = source.charAt(i);
+                bytes[2 * (i - start)] = (byte) (c >>> 8);
+                bytes[2 * (i - start) + 1] = (byte) c;
+            }
+            digest.update(bytes, 0, 2 * (end - start));
+        }
+        return digest.digest();
+    }
+
+    private static int readVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new BufferUnderflowException();
+    }
+
+    /**
+     * The columns of a block of consecutive tokens.
+     */
+    private final class Block {
+
+        private final byte[] types;
+        private final int[] starts;
+        private final int[] ids;
+
+        private Block(ByteBuffer in, int count, int end) {
+            types = new byte[count];
+            starts = new int[count];
+            ids = new int[count];
+            for (int i = 0; i < count; i++) {
+                int token = readVarint(in);
+                int type = token & 7;
+                int id = token >>> 3;
+                if (type >= TYPES.length || id >= literalLengths.length) {
+                    throw new UncheckedIOException(new IOException("Corrupt token file."));
+                }
+                types[i] = (byte) type;
+                ids[i] = id;
+                starts[i] = end + readVarint(in);
+                end = starts[i] + literalLengths[id];
+            }
+        }
+
+    }
+
+    /**
+     * A growable byte array written big endian, like {@link ByteBuffer}.
+     */
+    private static final class Output {
+
+        private byte[] bytes;
+        private int size = 0;
+
+        private Output(int capacity) {
+            bytes = new byte[Math.max(64, capacity)];
+        }
+
+        private void put(int b) {
+            if (size == bytes.length) {
+                bytes = Arrays.copyOf(bytes, size * 2);
+            }
+            bytes[size++] = (byte) b;
+        }
+
+        private void putInt(int value) {
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                put(value >>> shift);
+            }
+        }
+
+        private void putLong(long value) {
+            putInt((int) (value >>> 32));
+            putInt((int) value);
+        }
+
+        private void setInt(int offset, int value) {
+            for (int i = 0; i < 4; i++) {
+                bytes[offset + i] = (byte) (value >>> (24 - 8 * i));
+            }
+        }
+
+        private void putVarint(int value) {
+            while ((value & ~0x7F) != 0) {
+                put(value & 0x7F | 0x80);
+                value >>>= 7;
+            }
+            put(value);
+        }
+
+    }
+
+}
@@ -0,0 +1,161 @@
+package plc.project;
+
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the tokens of a {@link Lexer} to a subscriber, lexing them only
+ * as they are requested, following the reactive streams rules.
+ *
+ * {@code java.util.concurrent.Flow} only exists from Java 9, so the nested
+ * {@link Subscriber} and {@link Subscription} interfaces have the same methods
+ * as the ones in Flow, and adapting to them is a matter of delegating.
+ *
+ * Tokens are delivered on the publisher's executor (or the thread calling
+ * {@link Subscription#request(long)} by default) in batches, with the demand
+ * only updated once per batch. At most one token is lexed ahead of demand,
+ * which is what lets completion be signalled as soon as the last token is
+ * delivered. A {@link ParseException} is passed to {@link
+ * Subscriber#onError(Throwable)} once every token before it was delivered.
+ * A lexer can only be lexed once, so there can only be one subscriber.
+ */
+public final class TokenPublisher {
+
+    private static final int BATCH = 64;
+
+    public interface Subscriber<T> {
+
+        void onSubscribe(Subscription subscription);
+
+        void onNext(T item);
+
+        void onError(Throwable throwable);
+
+        void onComplete();
+
+    }
+
+    public interface Subscription {
+
+        void request(long n);
+
+        void cancel();
+
+    }
+
+    private final Lexer lexer;
+    private final Executor executor;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    TokenPublisher(Lexer lexer, Executor executor) {
+        this.lexer = lexer;
+        this.executor = executor;
+    }
+
+    public void subscribe(Subscriber<? super Token> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("Subscriber is null.");
+        }
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Subscription() {
+
+                @Override
+                public void request(long n) {}
+
+                @Override
+                public void cancel() {}
+
+            });
+            subscriber.onError(new IllegalStateException("The lexer already has a subscriber."));
+            return;
+        }
+        subscriber.onSubscribe(new LexSubscription(subscriber, lexer.iterator()));
+    }
+
+    private final class LexSubscription implements Subscription, Runnable {
+
+        private final Subscriber<? super Token> subscriber;
+        private final Iterator<Token> tokens;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile boolean cancelled = false;
+        private volatile boolean invalid = false;
+
+        private LexSubscription(Subscriber<? super Token> subscriber, Iterator<Token> tokens) {
+            this.subscriber = subscriber;
+            this.tokens = tokens;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalid = true;
+            } else {
+                long current;
+                long next;
+                do {
+                    current = demand.get();
+                    next = current + n < 0 ? Long.MAX_VALUE : current + n;
+                } while (!demand.compareAndSet(current, next));
+            }
+            if (pending.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        /**
+         * Delivers tokens while there is demand. Requests made while this is
+         * running (including from inside onNext) only bump the pending count,
+         * so they are picked up by the loop here rather than recursing.
+         */
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                long requested = demand.get();
+                long emitted = 0;
+                while (!cancelled) {
+                    if (invalid) {
+                        cancelled = true;
+                        subscriber.onError(new IllegalArgumentException("Requests must be positive (rule 3.9)."));
+                        return;
+                    }
+                    boolean more;
+                    try {
+                        more = tokens.hasNext();
+                    } catch (ParseException e) {
+                        cancelled = true;
+                        subscriber.onError(e);
+                        return;
+                    }
+                    if (!more) {
+                        cancelled = true;
+                        subscriber.onComplete();
+                        return;
+                    }
+                    if (emitted == requested || emitted == BATCH) {
+                        if (emitted == 0) {
+                            break;
+                        }
+                        requested = requested == Long.MAX_VALUE ? requested : demand.addAndGet(-emitted);
+                        emitted = 0;
+                        continue;
+                    }
+                    subscriber.onNext(tokens.next());
+                    emitted++;
+                }
+                missed = pending.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+    }
+
+}
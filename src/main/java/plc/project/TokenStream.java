@@ -0,0 +1,190 @@
+package plc.project;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The tokens of a {@link Lexer} as a parser consumes them, lexing each one
+ * only once the parser looks at it with {@link #peek(int)} or {@link
+ * #advance()}, so lexing and parsing interleave and parsing can start as soon
+ * as the first token is lexed.
+ *
+ * Tokens are kept in a ring buffer big enough for the lookahead the stream
+ * was created with, so memory stays bounded however long the input is. For
+ * backtracking, {@link #mark()} saves the current position and {@link
+ * #reset()} goes back to it. While a mark is held every token from it on has
+ * to be kept, so the buffer grows as needed and shrinks back once the last
+ * mark is reset or {@link #release() released}. Marks nest, so a parser can
+ * try an alternative inside another one.
+ *
+ * A {@link ParseException} is thrown by the call which first needs the
+ * invalid token, and again by any later call reaching it (such as after
+ * backtracking over it), while the tokens before it stay available.
+ */
+public final class TokenStream {
+
+    private final Iterator<Token> lexer;
+    private final int lookahead;
+    private final int capacity;
+    private Token[] tokens;
+    private int mask;
+    private int start = 0; // position of the oldest token kept
+    private int position = 0;
+    private int count = 0; // tokens lexed so far
+    private boolean ended = false;
+    private ParseException error;
+    private int[] marks = new int[4];
+    private int depth = 0;
+
+    TokenStream(Lexer lexer, int lookahead) {
+        if (lookahead < 1) {
+            throw new IllegalArgumentException("Lookahead must be at least 1.");
+        }
+        this.lexer = lexer.iterator();
+        this.lookahead = lookahead;
+        this.capacity = Integer.highestOneBit(lookahead * 2 - 1);
+        this.tokens = new Token[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Returns the current token, or null at the end of the input.
+     */
+    public Token peek() {
+        return peek(0);
+    }
+
+    /**
+     * Returns the token {@code offset} tokens after the current one, or null
+     * if the input ends before it. The offset has to be less than the
+     * lookahead of the stream.
+     */
+    public Token peek(int offset) {
+        if (offset < 0 || offset >= lookahead) {
+            throw new IllegalArgumentException("Offset " + offset + " is outside the lookahead of " + lookahead + ".");
+        }
+        return fill(position + offset) ? tokens[(position + offset) & mask] : null;
+    }
+
+    /**
+     * Returns true if there is a current token.
+     */
+    public boolean hasNext() {
+        return fill(position);
+    }
+
+    /**
+     * Consumes and returns the current token.
+     */
+    public Token advance() {
+        if (!fill(position)) {
+            throw new NoSuchElementException("No tokens left at position " + position + ".");
+        }
+        Token token = tokens[position & mask];
+        position++;
+        if (depth == 0) {
+            tokens[start & mask] = null;
+            start = position;
+        }
+        return token;
+    }
+
+    /**
+     * Returns the number of tokens consumed so far.
+     */
+    public int position() {
+        return position;
+    }
+
+    /**
+     * Saves the current position, keeping every token from here on until the
+     * mark is reset or released.
+     */
+    public void mark() {
+        if (depth == marks.length) {
+            marks = Arrays.copyOf(marks, depth * 2);
+        }
+        marks[depth++] = position;
+    }
+
+    /**
+     * Goes back to the most recent mark and removes it.
+     */
+    public void reset() {
+        position = pop();
+        unmark();
+    }
+
+    /**
+     * Removes the most recent mark without going back to it, once the parser
+     * has committed to what it parsed since.
+     */
+    public void release() {
+        pop();
+        unmark();
+    }
+
+    private int pop() {
+        if (depth == 0) {
+            throw new IllegalStateException("No mark is held.");
+        }
+        return marks[--depth];
+    }
+
+    /**
+     * Drops the tokens no mark needs anymore, shrinking the buffer back down
+     * once no marks are held.
+     */
+    private void unmark() {
+        if (depth > 0) {
+            return;
+        }
+        for (int i = start; i < position; i++) {
+            tokens[i & mask] = null;
+        }
+        start = position;
+        if (tokens.length > capacity && count - start <= capacity) {
+            resize(capacity);
+        }
+    }
+
+    /**
+     * Lexes tokens until the one at the given position, returning false if
+     * the input ends first.
+     */
+    private boolean fill(int target) {
+        while (count <= target) {
+            if (error != null) {
+                throw error;
+            } else if (ended) {
+                return false;
+            }
+            if (count - start == tokens.length) {
+                resize(tokens.length * 2);
+            }
+            try {
+                if (!lexer.hasNext()) {
+                    ended = true;
+                    return false;
+                }
+                tokens[count & mask] = lexer.next();
+                count++;
+            } catch (ParseException e) {
+                error = e;
+                throw e;
+            }
+        }
+        return true;
+    }
+
+    private void resize(int size) {
+        Token[] resized = new Token[size];
+        for (int i = start; i < count; i++) {
+            resized[i & (size - 1)] = tokens[i & mask];
+        }
+        tokens = resized;
+        mask = size - 1;
+    }
+
+}
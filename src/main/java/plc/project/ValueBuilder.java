@@ -0,0 +1,140 @@
+package plc.project;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Builds the values of number, character and string tokens (see {@link
+ * Token#getValue()}) as a lexer scans them, so they never have to be parsed
+ * from the literal again. There is one per {@link Lexer.CharStream}, shared by
+ * whichever engine is lexing it.
+ *
+ * Numbers are accumulated one char at a time into a (negated, to reach {@link
+ * Long#MIN_VALUE}) long, with the scale counted after the point for decimals,
+ * and only fall back to {@link BigInteger} or {@link BigDecimal} if that
+ * overflows. Escapes in strings are decoded into one reused builder as they
+ * are passed, so a string without any is never copied. Positions are absolute
+ * indices into the char stream, and the chars of the token have to still be
+ * in its buffer.
+ */
+final class ValueBuilder {
+
+    private static final long LIMIT = Long.MIN_VALUE / 10;
+
+    private final StringBuilder decoded = new StringBuilder();
+    private boolean negative;
+    private long unscaled;
+    private int scale;
+    private boolean overflow;
+    private boolean escaped;
+    private int copied;
+
+    void startNumber() {
+        negative = false;
+        unscaled = 0;
+        scale = -1;
+        overflow = false;
+    }
+
+    /**
+     * Adds the next char of a number: a digit, the leading minus or the
+     * decimal point.
+     */
+    void number(char c) {
+        if (c == '-') {
+            negative = true;
+        } else if (c == '.') {
+            scale = 0;
+        } else if (!overflow) {
+            int digit = c - '0';
+            if (unscaled < LIMIT || unscaled == LIMIT && digit > 8) {
+                overflow = true;
+            } else {
+                unscaled = unscaled * 10 - digit;
+                if (scale >= 0) {
+                    scale++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts a string whose contents begin at the given position, just after
+     * the opening quote.
+     */
+    void startString(int from) {
+        escaped = false;
+        copied = from;
+    }
+
+    /**
+     * Decodes the escape whose backslash is at the given position, with the
+     * letter after it.
+     */
+    void escape(char[] buffer, int base, int backslash, char letter) {
+        copy(buffer, base, backslash);
+        decoded.append(unescape(letter));
+        copied = backslash + 2;
+    }
+
+    /**
+     * Drops the backslash of an invalid escape being recovered from, keeping
+     * the char after it.
+     */
+    void dropEscape(char[] buffer, int base, int backslash) {
+        copy(buffer, base, backslash);
+        copied = backslash + 1;
+    }
+
+    private void copy(char[] buffer, int base, int to) {
+        if (!escaped) {
+            decoded.setLength(0);
+            escaped = true;
+        }
+        decoded.append(buffer, copied - base, to - copied);
+    }
+
+    /**
+     * Returns the value of the token just scanned from {@code start} to
+     * {@code end}, or null for a string without escapes, which the char
+     * stream makes a view of the input (or the literal) instead.
+     */
+    Object value(Token.Type type, char[] buffer, int base, int start, int end) {
+        switch (type) {
+            case INTEGER:
+            case DECIMAL:
+                if (overflow || !negative && unscaled == Long.MIN_VALUE) {
+                    String literal = new String(buffer, start - base, end - start);
+                    return type == Token.Type.INTEGER ? new BigInteger(literal) : new BigDecimal(literal);
+                }
+                long value = negative ? unscaled : -unscaled;
+                return type == Token.Type.INTEGER ? (Object) value : BigDecimal.valueOf(value, Math.max(scale, 0));
+            case CHARACTER:
+                return end - start == 3 ? buffer[start + 1 - base] : unescape(buffer[start + 2 - base]);
+            case STRING:
+                if (!escaped) {
+                    return null;
+                }
+                copy(buffer, base, end - 1);
+                return new CharSlice(decoded.toString());
+            default:
+                return null;
+        }
+    }
+
+    static char unescape(char c) {
+        switch (c) {
+            case 'b':
+                return '\b';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            default:
+                return c;
+        }
+    }
+
+}
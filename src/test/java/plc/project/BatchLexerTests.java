@@ -0,0 +1,34 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class BatchLexerTests {
+
+    @Test
+    void testReuse() {
+        BatchLexer lexer = new BatchLexer();
+        TokenBuffer first = lexer.lex("LET x = 5;");
+        Assertions.assertEquals(new Lexer("LET x = 5;").lex(), first);
+        TokenBuffer second = lexer.lex("print(\"Hello, World!\");");
+        Assertions.assertSame(first, second);
+        Assertions.assertEquals(new Lexer("print(\"Hello, World!\");").lex(), second);
+        Assertions.assertEquals(0, lexer.lex("").size());
+    }
+
+    @Test
+    void testException() {
+        BatchLexer lexer = BatchLexer.local();
+        Assertions.assertThrows(ParseException.class, () -> lexer.lex("\"unterminated"));
+        Assertions.assertEquals(new Lexer("x != y").lex(), lexer.lex("x != y"));
+    }
+
+    @Test
+    void testResetLexer() {
+        Lexer lexer = new Lexer("a b c");
+        Assertions.assertEquals(3, lexer.lex().size());
+        lexer.reset("while(x < 5) {x = x + 1;}");
+        Assertions.assertEquals(new Lexer("while(x < 5) {x = x + 1;}").lex(), lexer.lex());
+    }
+
+}
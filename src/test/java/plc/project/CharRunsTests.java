@@ -0,0 +1,49 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class CharRunsTests {
+
+    @Test
+    void testStringBody() {
+        char[] buffer = "\"Hello, World! This string is quite a bit longer\\n than sixteen chars\"".toCharArray();
+        Assertions.assertEquals(48, CharRuns.stringBody(buffer, 1, buffer.length));
+        Assertions.assertEquals(buffer.length - 1, CharRuns.stringBody(buffer, 50, buffer.length));
+        Assertions.assertEquals(20, CharRuns.stringBody(buffer, 1, 20));
+    }
+
+    @Test
+    void testStringBodyMatchesScalar() {
+        Random random = new Random(0);
+        char[] special = {'"', '\\', '\n', '\r', '\t', '\b', '\u0000', '\u001F', ' ', '\u8000', '\uFFFF', '[', '\u0122'};
+        for (int test = 0; test < 10000; test++) {
+            char[] buffer = new char[random.nextInt(80)];
+            for (int i = 0; i < buffer.length; i++) {
+                buffer[i] = random.nextInt(24) == 0 ? special[random.nextInt(special.length)]
+                        : (char) ('a' + random.nextInt(26));
+            }
+            int from = buffer.length == 0 ? 0 : random.nextInt(buffer.length);
+            Assertions.assertEquals(CharRuns.scalarStringBody(buffer, from, buffer.length),
+                    CharRuns.stringBody(buffer, from, buffer.length));
+        }
+    }
+
+    @Test
+    void testWhitespace() {
+        char[] buffer = "x\n            \t  \r\n        y".toCharArray();
+        Assertions.assertEquals(buffer.length - 1, CharRuns.whitespace(buffer, 1, buffer.length));
+        Assertions.assertEquals(0, CharRuns.whitespace(buffer, 0, buffer.length));
+        Assertions.assertEquals(10, CharRuns.whitespace(buffer, 1, 10));
+    }
+
+    @Test
+    void testIdentifier() {
+        char[] buffer = "get_Name-2@x.y\u00e9".toCharArray();
+        Assertions.assertEquals(12, CharRuns.identifier(buffer, 0, buffer.length));
+        Assertions.assertEquals(14, CharRuns.identifier(buffer, 13, buffer.length));
+    }
+
+}
@@ -0,0 +1,86 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.List;
+
+public class CharStreamTests {
+
+    private static final String INPUT = "LET x = 5;\nprint(\"Hello, World!\", 'c', -1.5);";
+
+    @Test
+    void testArraySlice() {
+        char[] chars = ("garbage " + INPUT + " trailing").toCharArray();
+        for (Lexer.Engine engine : Lexer.Engine.values()) {
+            Assertions.assertEquals(new Lexer(INPUT).lex(), new Lexer(chars, 8, INPUT.length(), engine).lex());
+        }
+        Assertions.assertEquals("garbage " + INPUT + " trailing", new String(chars));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> new Lexer(chars, 8, chars.length, Lexer.Engine.TABLE));
+    }
+
+    @Test
+    void testArrayError() {
+        char[] chars = "xx \"unterminated".toCharArray();
+        ParseException exception = Assertions.assertThrows(ParseException.class,
+                () -> new Lexer(chars, 3, chars.length - 3, Lexer.Engine.TABLE).lex());
+        Assertions.assertEquals(13, exception.getIndex());
+    }
+
+    @Test
+    void testCharBuffer() {
+        List<Token> expected = new Lexer(INPUT).lex();
+        CharBuffer wrapped = CharBuffer.wrap(("  " + INPUT).toCharArray());
+        wrapped.position(2);
+        Assertions.assertEquals(expected, new Lexer(wrapped, Lexer.Engine.TABLE).lex());
+        Assertions.assertEquals(2, wrapped.position());
+        CharBuffer direct = ByteBuffer.allocateDirect(INPUT.length() * 2).asCharBuffer();
+        direct.put(INPUT).flip();
+        Assertions.assertEquals(expected, new Lexer(direct, Lexer.Engine.PATTERN).lex());
+        Assertions.assertEquals(expected, new Lexer(CharBuffer.wrap(INPUT), Lexer.Engine.TABLE).lex());
+    }
+
+    @Test
+    void testCharSequence() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            builder.append("x").append(i % 9 + 1).append(" = \"s\";\n");
+        }
+        for (Lexer.Engine engine : Lexer.Engine.values()) {
+            Assertions.assertEquals(new Lexer(builder.toString()).lex(), new Lexer(builder, engine).lex());
+        }
+    }
+
+    /**
+     * A stream created over a short input still reads a long one it's reset
+     * to in full sized chunks, rather than one char at a time.
+     */
+    @Test
+    void testResetLong() {
+        String input = new String(new char[1 << 20]).replace('\0', 'x');
+        Lexer.CharStream chars = new Lexer.CharStream("x");
+        chars.reset(input);
+        int fills = 0;
+        while (chars.fill(chars.base + chars.limit)) {
+            Assertions.assertTrue(chars.buffer.length >= 8192);
+            fills++;
+        }
+        Assertions.assertTrue(fills <= input.length() / 8192, Integer.toString(fills));
+        BatchLexer batch = new BatchLexer();
+        batch.lex("x");
+        Assertions.assertEquals(1, batch.lex(input).size());
+    }
+
+    @Test
+    void testResetShared() {
+        char[] chars = "a b c".toCharArray();
+        Lexer lexer = new Lexer(chars, 0, chars.length, Lexer.Engine.TABLE);
+        Assertions.assertEquals(3, lexer.lex().size());
+        lexer.reset("x y");
+        Assertions.assertEquals(new Lexer("x y").lex(), lexer.lex());
+        Assertions.assertEquals("a b c", new String(chars));
+    }
+
+}
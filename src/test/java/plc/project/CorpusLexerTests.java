@@ -0,0 +1,114 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+public class CorpusLexerTests {
+
+    @Test
+    void testCorpus() throws IOException {
+        Path root = Files.createTempDirectory("corpus");
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<String> sources = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                StringBuilder source = new StringBuilder();
+                for (int line = 0; line < i * 10 + 1; line++) {
+                    source.append("LET x").append(line % 9 + 1).append(" = \"s\" + 'c' && y != 4.5;\n");
+                }
+                sources.add(source.toString());
+                Path directory = Files.createDirectories(root.resolve("d" + i % 3));
+                Files.write(directory.resolve("f" + i + ".plc"), source.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            Files.write(root.resolve("bad.plc"), "LET x = \"unterminated".getBytes(StandardCharsets.UTF_8));
+            Files.write(root.resolve("skipped.txt"), "&".getBytes(StandardCharsets.UTF_8));
+            Map<Path, List<Token>> lexed = new ConcurrentHashMap<>();
+            CorpusLexer.Report report = new CorpusLexer(pool, 4096).lex(root, "*.plc", lexed::put);
+
+            Assertions.assertEquals(41, report.getFiles().size());
+            Assertions.assertEquals(1, report.getErrors().size());
+            CorpusLexer.FileResult bad = report.getErrors().get(0);
+            Assertions.assertEquals(root.resolve("bad.plc"), bad.getPath());
+            Assertions.assertTrue(bad.getError() instanceof ParseException);
+            long tokens = 0;
+            for (int i = 0; i < sources.size(); i++) {
+                Path path = root.resolve("d" + i % 3).resolve("f" + i + ".plc");
+                Assertions.assertEquals(new Lexer(sources.get(i)).lex(), new ArrayList<>(lexed.get(path)));
+                tokens += lexed.get(path).size();
+            }
+            Assertions.assertEquals(tokens, report.getTokens());
+            Assertions.assertEquals(tokens / 11, report.getTokens(Token.Type.STRING));
+            List<CorpusLexer.FileResult> sorted = new ArrayList<>(report.getFiles());
+            sorted.sort(Comparator.comparing(CorpusLexer.FileResult::getPath));
+            Assertions.assertEquals(sorted, report.getFiles());
+            long largest = 0;
+            for (CorpusLexer.FileResult file : report.getFiles()) {
+                if (file.getError() == null) {
+                    Assertions.assertTrue(file.getHeldBytes() >= 3 * file.getBytes(), file.toString());
+                    largest = Math.max(largest, file.getHeldBytes());
+                }
+            }
+            Assertions.assertTrue(largest > 4096);
+            Assertions.assertTrue(report.getPeakBytes() >= largest);
+            Assertions.assertTrue(report.getTokensPerSecond() > 0);
+        } finally {
+            pool.shutdown();
+            delete(root);
+        }
+    }
+
+    /**
+     * Every file is over the limit, so they have to be lexed one at a time
+     * and the peak is the largest of them rather than several added up.
+     */
+    @Test
+    void testBudget() throws IOException {
+        Path root = Files.createTempDirectory("corpus");
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int i = 0; i < 20; i++) {
+                StringBuilder source = new StringBuilder();
+                for (int line = 0; line < 100 + i; line++) {
+                    source.append("LET x = \"s\" + 'c' && y != 4.5;\n");
+                }
+                Files.write(root.resolve("f" + i + ".plc"), source.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            CorpusLexer.Report report = new CorpusLexer(pool, 1024).lex(root);
+            long largest = 0;
+            for (CorpusLexer.FileResult file : report.getFiles()) {
+                Assertions.assertNull(file.getError());
+                Assertions.assertTrue(file.getHeldBytes() > 1024);
+                largest = Math.max(largest, file.getHeldBytes());
+            }
+            Assertions.assertEquals(largest, report.getPeakBytes());
+        } finally {
+            pool.shutdown();
+            delete(root);
+        }
+    }
+
+    private static void delete(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            List<Path> files = new ArrayList<>();
+            paths.forEach(files::add);
+            Collections.reverse(files);
+            for (Path path : files) {
+                Files.delete(path);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+public class IncrementalLexerTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testEdit(String test, String input, int offset, int removed, String inserted) {
+        String edited = input.substring(0, offset) + inserted + input.substring(offset + removed);
+        List<Token> expected = new Lexer(edited).lex();
+        Assertions.assertEquals(expected, Lexer.relex(edited, new Lexer(input).lex(), offset, removed, inserted.length()));
+        Assertions.assertEquals(expected, Lexer.relex(edited, Lexer.lexBuffer(input), offset, removed, inserted.length()));
+    }
+
+    private static Stream<Arguments> testEdit() {
+        return Stream.of(
+                Arguments.of("Insert Statement", "LET x = 5;\nLET y = 6;", 11, 0, "LET z = 7;\n"),
+                Arguments.of("Extend Identifier", "LET x = 5;", 5, 0, "yz"),
+                Arguments.of("Join Identifiers", "ab cd", 2, 1, ""),
+                Arguments.of("Wrap In String", "x a b c", 2, 3, "\"a b\""),
+                Arguments.of("Close String", "x \"a b\" c", 4, 0, "\" \""),
+                Arguments.of("Change Number", "1.5 + 2", 2, 1, "25"),
+                Arguments.of("Delete All", "a b c", 0, 5, ""),
+                Arguments.of("Append", "a b", 3, 0, " c")
+        );
+    }
+
+    /**
+     * Chains enough edits, each relexing the previous result, for the ranges
+     * the result is made of to be merged and compacted along the way.
+     */
+    @Test
+    void testEditChain() {
+        String[] insertions = {"x", " ", "\"a b\"", "12", ";\n", "&&", "LET y = 1;"};
+        Random random = new Random(0);
+        String input = "LET x = 5;\nprint(x);\n";
+        List<Token> tokens = new Lexer(input).lex();
+        for (int edit = 0; edit < 1000; edit++) {
+            int offset = random.nextInt(input.length() + 1);
+            int removed = random.nextInt(Math.min(3, input.length() - offset) + 1);
+            String inserted = insertions[random.nextInt(insertions.length)];
+            String edited = input.substring(0, offset) + inserted + input.substring(offset + removed);
+            List<Token> expected;
+            try {
+                expected = new Lexer(edited).lex();
+            } catch (ParseException e) {
+                continue;
+            }
+            tokens = Lexer.relex(edited, tokens, offset, removed, inserted.length());
+            Assertions.assertEquals(expected, tokens);
+            input = edited;
+            if (input.length() > 3000) {
+                input = "LET x = 5;\n";
+                tokens = new Lexer(input).lex();
+            }
+        }
+    }
+
+    /**
+     * With {@code <} and {@code <<=} but not {@code <<}, lexing {@code <<x}
+     * reads two chars past the {@code <} before backing up to it, so an edit
+     * two chars after a token can change it.
+     */
+    @Test
+    void testCustomTables() {
+        OperatorTable operators = OperatorTable.of("<", "<<=", "=", "::");
+        KeywordTable keywords = KeywordTable.of("LET", "IF");
+        SymbolTable symbols = new SymbolTable();
+        List<Token> previous = new Lexer(new Lexer.CharStream("<<y"), Lexer.Engine.TABLE, symbols, operators, keywords).lex();
+        Assertions.assertEquals(3, previous.size());
+        List<Token> tokens = Lexer.relex("<<=y", previous, 2, 0, 1, symbols, operators, keywords);
+        Assertions.assertEquals(new Lexer("<<=y", Lexer.Engine.TABLE, operators).lex(), tokens);
+
+        String[] insertions = {"x", " ", "<", "<<=", "=", ":", "::", "IF ", "LET", "12"};
+        Random random = new Random(0);
+        String input = "LET x = 5 :: IF y << z <<= 2";
+        tokens = new Lexer(new Lexer.CharStream(input), Lexer.Engine.TABLE, symbols, operators, keywords).lex();
+        for (int edit = 0; edit < 1000; edit++) {
+            int offset = random.nextInt(input.length() + 1);
+            int removed = random.nextInt(Math.min(3, input.length() - offset) + 1);
+            String inserted = insertions[random.nextInt(insertions.length)];
+            String edited = input.substring(0, offset) + inserted + input.substring(offset + removed);
+            List<Token> expected;
+            try {
+                expected = new Lexer(new Lexer.CharStream(edited), Lexer.Engine.PATTERN, symbols, operators, keywords).lex();
+            } catch (ParseException e) {
+                continue;
+            }
+            tokens = Lexer.relex(edited, tokens, offset, removed, inserted.length(), symbols, operators, keywords);
+            Assertions.assertEquals(expected, tokens, edited);
+            for (int i = 0; i < tokens.size(); i++) {
+                Assertions.assertEquals(expected.get(i).getSymbol(), tokens.get(i).getSymbol());
+                Assertions.assertEquals(expected.get(i).getKeyword(), tokens.get(i).getKeyword());
+            }
+            input = edited.length() > 500 ? "LET x = 5 :: IF y << z <<= 2" : edited;
+            if (input != edited) {
+                tokens = new Lexer(new Lexer.CharStream(input), Lexer.Engine.TABLE, symbols, operators, keywords).lex();
+            }
+        }
+    }
+
+    @Test
+    void testReusesTokens() {
+        List<Token> previous = new Lexer("a b c d").lex();
+        List<Token> tokens = Lexer.relex("a bb c d", previous, 3, 0, 1);
+        Assertions.assertSame(previous.get(0), tokens.get(0));
+        Assertions.assertEquals(new Token(Token.Type.IDENTIFIER, "d", 7), tokens.get(3));
+    }
+
+    @Test
+    void testException() {
+        List<Token> previous = new Lexer("LET x = \"a\";").lex();
+        ParseException exception = Assertions.assertThrows(ParseException.class,
+                () -> Lexer.relex("LET x = \"a;", previous, 10, 1, 0));
+        Assertions.assertEquals(11, exception.getIndex());
+    }
+
+}
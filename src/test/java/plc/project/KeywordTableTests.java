@@ -0,0 +1,76 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class KeywordTableTests {
+
+    private static final KeywordTable KEYWORDS = KeywordTable.of("LIST", "VAR", "VAL", "FUN", "DEF", "DO",
+            "END", "LET", "SWITCH", "CASE", "DEFAULT", "IF", "ELSE", "WHILE", "RETURN", "NIL", "TRUE", "FALSE");
+
+    @Test
+    void testLookup() {
+        for (int id = 0; id < KEYWORDS.size(); id++) {
+            Assertions.assertEquals(id, KEYWORDS.lookup(KEYWORDS.getKeyword(id)));
+        }
+        for (String word : new String[] {"", "D", "DEFA", "LETS", "let", "NULL", "WHILE_", "xDEFAULT"}) {
+            Assertions.assertEquals(-1, KEYWORDS.lookup(word), word);
+        }
+        char[] chars = "xxDEFAULTxx".toCharArray();
+        Assertions.assertEquals(KEYWORDS.lookup("DEF"), KEYWORDS.lookup(chars, 2, 3));
+        Assertions.assertEquals(KEYWORDS.lookup("DEFAULT"), KEYWORDS.lookup(chars, 2, 7));
+    }
+
+    @Test
+    void testRandomSets() {
+        Random random = new Random(0);
+        for (int test = 0; test < 200; test++) {
+            List<String> words = new ArrayList<>();
+            for (int i = random.nextInt(test + 1); i >= 0; i--) {
+                StringBuilder word = new StringBuilder();
+                for (int c = random.nextInt(4); c >= 0; c--) {
+                    word.append((char) ('a' + random.nextInt(3)));
+                }
+                words.add(word.toString());
+            }
+            KeywordTable keywords = KeywordTable.of(words.toArray(new String[0]));
+            for (String word : words) {
+                Assertions.assertEquals(word, keywords.getKeyword(keywords.lookup(word)));
+            }
+            Assertions.assertEquals(-1, keywords.lookup("abcd_"));
+        }
+    }
+
+    @Test
+    void testLexer() {
+        String input = "LET x = IF; DEFAULT LETTER let";
+        for (Lexer.Engine engine : Lexer.Engine.values()) {
+            List<Token> tokens = new Lexer(input, engine, KEYWORDS).lex();
+            Assertions.assertEquals(new Lexer(input).lex(), tokens);
+            Assertions.assertEquals(KEYWORDS.lookup("LET"), tokens.get(0).getKeyword());
+            Assertions.assertSame(KEYWORDS.getKeyword(tokens.get(0).getKeyword()), tokens.get(0).getLiteral());
+            Assertions.assertEquals(-1, tokens.get(1).getKeyword());
+            Assertions.assertEquals(-1, tokens.get(2).getKeyword());
+            Assertions.assertEquals(KEYWORDS.lookup("IF"), tokens.get(3).getKeyword());
+            Assertions.assertEquals(KEYWORDS.lookup("DEFAULT"), tokens.get(5).getKeyword());
+            Assertions.assertEquals(-1, tokens.get(6).getKeyword());
+            Assertions.assertEquals(-1, tokens.get(7).getKeyword());
+        }
+    }
+
+    @Test
+    void testSymbolsAndStreaming() {
+        SymbolTable symbols = new SymbolTable();
+        Lexer.CharStream chars = new Lexer.CharStream(new StringReader("WHILE x WHILE"), 2);
+        List<Token> tokens = new Lexer(chars, Lexer.Engine.TABLE, symbols, OperatorTable.DEFAULT, KEYWORDS).lex();
+        Assertions.assertEquals(KEYWORDS.lookup("WHILE"), tokens.get(2).getKeyword());
+        Assertions.assertEquals(tokens.get(0).getSymbol(), tokens.get(2).getSymbol());
+        Assertions.assertEquals(2, symbols.size());
+    }
+
+}
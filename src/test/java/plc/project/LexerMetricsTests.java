@@ -0,0 +1,66 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+public class LexerMetricsTests {
+
+    @Test
+    void testCounts() {
+        LexerMetrics metrics = new LexerMetrics();
+        for (Lexer.Engine engine : Lexer.Engine.values()) {
+            Lexer lexer = new Lexer("LET x = 5;", engine);
+            lexer.setListener(metrics);
+            lexer.lex();
+        }
+        Assertions.assertEquals(2, metrics.getLexes());
+        Assertions.assertEquals(20, metrics.getChars());
+        Assertions.assertEquals(10, metrics.getTokens());
+        Assertions.assertEquals(4, metrics.getTokens(Token.Type.IDENTIFIER));
+        Assertions.assertEquals(4, metrics.getTokens(Token.Type.OPERATOR));
+        Assertions.assertEquals(2, metrics.getTokens(Token.Type.INTEGER));
+        Assertions.assertTrue(metrics.getPeeks() > metrics.getMatches());
+        Assertions.assertTrue(metrics.getMatches() > 0);
+        Assertions.assertTrue(metrics.getErrors().isEmpty());
+    }
+
+    @Test
+    void testErrors() {
+        LexerMetrics metrics = new LexerMetrics();
+        for (Lexer.Engine engine : Lexer.Engine.values()) {
+            Lexer lexer = new Lexer("x = \"unterminated", engine);
+            lexer.setListener(metrics);
+            Assertions.assertThrows(ParseException.class, lexer::lex);
+        }
+        Lexer lexer = new Lexer("a & b", Lexer.Engine.TABLE);
+        lexer.setListener(metrics);
+        lexer.lexRecovering();
+        Assertions.assertEquals(3, metrics.getLexes());
+        Assertions.assertEquals(2, (long) metrics.getErrors().get("Parse exception: unterminated quotes"));
+        Assertions.assertEquals(1, (long) metrics.getErrors().get("Parse exception: unterminated &&"));
+        Assertions.assertEquals(4, metrics.getTokens(Token.Type.IDENTIFIER));
+    }
+
+    @Test
+    void testDisabled() {
+        Lexer lexer = new Lexer("LET x = 5;");
+        LexerMetrics metrics = new LexerMetrics();
+        lexer.setListener(LexerListener.all(metrics, new FlightRecorderListener(4)));
+        lexer.setListener(null);
+        lexer.lex();
+        Assertions.assertEquals(0, metrics.getLexes());
+        Assertions.assertEquals(Collections.emptyMap(), metrics.getErrors());
+    }
+
+    @Test
+    void testFlightRecorder() {
+        LexerMetrics metrics = new LexerMetrics();
+        Lexer lexer = new Lexer("print(\"Hello, World!\");", Lexer.Engine.TABLE);
+        lexer.setListener(LexerListener.all(metrics, new FlightRecorderListener(4)));
+        Assertions.assertEquals(new Lexer("print(\"Hello, World!\");").lex(), lexer.lex());
+        Assertions.assertEquals(5, metrics.getTokens());
+    }
+
+}
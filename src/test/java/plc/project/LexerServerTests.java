@@ -0,0 +1,127 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+public class LexerServerTests {
+
+    @Test
+    void testSubmit() throws Exception {
+        try (LexerServer server = new LexerServer(4, 1024)) {
+            String input = "print(\"Hello, World!\");";
+            Assertions.assertEquals(new Lexer(input).lex(), decode(input, server.submit(input).get()));
+            String error = "x = \"unterminated";
+            ParseException exception = Assertions.assertThrows(ParseException.class,
+                    () -> decode(error, server.submit(error).get()));
+            Assertions.assertEquals(new Lexer(error).lexRecovering().getErrors().get(0).getIndex(), exception.getIndex());
+        }
+    }
+
+    @Test
+    void testLimits() throws Exception {
+        try (LexerServer server = new LexerServer(0, 8)) {
+            Assertions.assertThrows(RejectedExecutionException.class,
+                    () -> decode("LET x;", server.submit("LET x;").get()));
+            Assertions.assertEquals(1, server.getRejected());
+        }
+        try (LexerServer server = new LexerServer(4, 8)) {
+            Assertions.assertThrows(RejectedExecutionException.class,
+                    () -> decode("LET x = 5;", server.submit("LET x = 5;").get()));
+            Assertions.assertEquals(0, server.getRejected());
+        }
+    }
+
+    @Test
+    void testSocket() throws Exception {
+        try (LexerServer server = new LexerServer(4, 16)) {
+            int port = server.listen(0);
+            try (LexerClient client = new LexerClient(port)) {
+                Assertions.assertEquals(new Lexer("while(x < 5)").lex(), client.lex("while(x < 5)"));
+                Assertions.assertThrows(RejectedExecutionException.class,
+                        () -> client.lex("while(x < 5) {x = x + 1;}"));
+                Assertions.assertThrows(ParseException.class, () -> client.lex("'ab'"));
+                Assertions.assertEquals(new Lexer("x = x + 1;").lex(), client.lex("x = x + 1;"));
+            }
+        }
+    }
+
+    @Test
+    void testOversizedClosed() throws Exception {
+        try (LexerServer server = new LexerServer(4, 16)) {
+            int port = server.listen(0);
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+                DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                out.writeInt(Integer.MAX_VALUE);
+                out.flush();
+                DataInputStream in = new DataInputStream(socket.getInputStream());
+                Assertions.assertEquals(LexerServer.TOO_LARGE, in.readByte());
+                in.readUTF();
+                Assertions.assertEquals(-1, in.read());
+            }
+        }
+    }
+
+    @Test
+    void testPermitBeforeRead() throws Exception {
+        try (LexerServer server = new LexerServer(1, 16)) {
+            int port = server.listen(0);
+            try (Socket stalled = new Socket(InetAddress.getLoopbackAddress(), port);
+                 LexerClient client = new LexerClient(port)) {
+                //a request still being sent holds the only permit
+                DataOutputStream out = new DataOutputStream(stalled.getOutputStream());
+                out.writeInt(8);
+                out.writeBytes("LET");
+                out.flush();
+                RejectedExecutionException rejected = null;
+                for (int i = 0; i < 100 && rejected == null; i++) {
+                    try {
+                        client.lex("x");
+                        Thread.sleep(10);
+                    } catch (RejectedExecutionException e) {
+                        rejected = e;
+                    }
+                }
+                Assertions.assertNotNull(rejected);
+                Assertions.assertTrue(server.getRejected() > 0);
+                out.writeBytes(" x = ");
+                out.flush();
+                DataInputStream in = new DataInputStream(stalled.getInputStream());
+                Assertions.assertEquals(new Lexer("LET x = ").lex(), LexerServer.decode("LET x = ", in));
+                Assertions.assertEquals(new Lexer("x").lex(), client.lex("x"));
+            }
+        }
+    }
+
+    @Test
+    void testCloseClients() throws Exception {
+        try (Socket socket = new Socket()) {
+            try (LexerServer server = new LexerServer(4, 16)) {
+                socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.listen(0)));
+                socket.setSoTimeout(5000);
+                DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                out.writeInt(1);
+                out.writeBytes("x");
+                out.flush();
+                DataInputStream in = new DataInputStream(socket.getInputStream());
+                Assertions.assertEquals(new Lexer("x").lex(), LexerServer.decode("x", in));
+            }
+            //the connection thread was blocked reading the next request
+            Assertions.assertEquals(-1, socket.getInputStream().read());
+        }
+    }
+
+    private static List<Token> decode(String input, byte[] response) throws IOException {
+        return LexerServer.decode(input, new DataInputStream(new ByteArrayInputStream(response)));
+    }
+
+}
@@ -0,0 +1,82 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.Random;
+
+public class LineIndexTests {
+
+    private static final String INPUT = "LET x = 5;\n\nprint(x);\r\n  \"unterminated";
+
+    @Test
+    void testLookup() {
+        LineIndex lines = LineIndex.of(INPUT);
+        Assertions.assertEquals(4, lines.getLineCount());
+        Assertions.assertEquals("1:1", lines.format(0));
+        Assertions.assertEquals("1:11", lines.format(10));
+        Assertions.assertEquals("2:1", lines.format(11));
+        Assertions.assertEquals("3:1", lines.format(12));
+        Assertions.assertEquals(4, lines.getLine(INPUT.length()));
+        Assertions.assertEquals(3, lines.getColumn(25));
+        Assertions.assertEquals(23, lines.getLineStart(4));
+    }
+
+    @Test
+    void testLexer() {
+        for (Lexer.Engine engine : Lexer.Engine.values()) {
+            Lexer lexer = new Lexer(INPUT, engine);
+            LineIndex lines = lexer.lines();
+            ParseException exception = Assertions.assertThrows(ParseException.class, lexer::lex);
+            Assertions.assertEquals("4:16", lines.format(exception.getIndex()));
+        }
+    }
+
+    @Test
+    void testStreaming() {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            input.append("x").append(i % 9 + 1).append(" = y;\n");
+        }
+        Lexer lexer = new Lexer(new Lexer.CharStream(new StringReader(input.toString()), 16), Lexer.Engine.TABLE);
+        LineIndex lines = lexer.lines();
+        LineIndex expected = LineIndex.of(input);
+        lexer.iterator().forEachRemaining(token -> {
+            Assertions.assertEquals(expected.format(token.getIndex()), lines.format(token.getIndex()));
+        });
+        Assertions.assertEquals(501, lines.getLineCount());
+    }
+
+    @Test
+    void testArraySlice() {
+        char[] chars = ("\n\n" + INPUT).toCharArray();
+        Lexer lexer = new Lexer(chars, 2, INPUT.length(), Lexer.Engine.TABLE);
+        Assertions.assertEquals(4, lexer.lines().getLineCount());
+        Assertions.assertEquals(23, lexer.lines().getLineStart(4));
+    }
+
+    @Test
+    void testEdit() {
+        Random random = new Random(0);
+        String input = "a\nbb\n\nccc\nd\n";
+        LineIndex lines = LineIndex.of(input);
+        for (int test = 0; test < 2000; test++) {
+            int offset = random.nextInt(input.length() + 1);
+            int removed = random.nextInt(input.length() - offset + 1);
+            String inserted = random.nextBoolean() ? "\n" : random.nextBoolean() ? "x\ny" : "zz";
+            input = input.substring(0, offset) + inserted + input.substring(offset + removed);
+            lines = lines.edit(input, offset, removed, inserted.length());
+            LineIndex expected = LineIndex.of(input);
+            Assertions.assertEquals(expected.getLineCount(), lines.getLineCount());
+            for (int i = 0; i <= input.length(); i++) {
+                Assertions.assertEquals(expected.format(i), lines.format(i));
+            }
+            if (input.length() > 40) {
+                input = input.substring(0, 20);
+                lines = LineIndex.of(input);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,137 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+public class OperatorTableTests {
+
+    private static final OperatorTable DIALECT = OperatorTable.DEFAULT
+            .with("<", "<=", "<<", "<<=", ">", ">=", "-", "->", ":", "::", "...");
+
+    /**
+     * Lists {@code ...} but not {@code .}, so a single {@code .} isn't an
+     * operator.
+     */
+    private static final OperatorTable STRICT = OperatorTable.of("!", "!=", "=", "==", "&&", "||", "<", "<=", "...");
+
+    @ParameterizedTest
+    @MethodSource
+    void testDialect(String test, String input, List<String> expected) {
+        for (Lexer.Engine engine : Lexer.Engine.values()) {
+            List<String> literals = new ArrayList<>();
+            for (Token token : new Lexer(input, engine, DIALECT).lex()) {
+                literals.add(token.getLiteral());
+            }
+            Assertions.assertEquals(expected, literals, engine.name());
+        }
+    }
+
+    private static Stream<Arguments> testDialect() {
+        return Stream.of(
+                Arguments.of("Comparison", "a<=b", Arrays.asList("a", "<=", "b")),
+                Arguments.of("Shift Assign", "x <<= 2", Arrays.asList("x", "<<=", "2")),
+                Arguments.of("Backtrack", "x<<y", Arrays.asList("x", "<<", "y")),
+                Arguments.of("Arrow", "f -> g", Arrays.asList("f", "->", "g")),
+                Arguments.of("Negative", "-5->-x", Arrays.asList("-5", "->", "-", "x")),
+                Arguments.of("Scope", "a::b:c", Arrays.asList("a", "::", "b", ":", "c")),
+                Arguments.of("Ellipsis", "f(...)", Arrays.asList("f", "(", "...", ")")),
+                Arguments.of("Dots", "a..b", Arrays.asList("a", ".", ".", "b")),
+                Arguments.of("Default Operators", "a!=b&&c==d||!e", Arrays.asList("a", "!=", "b", "&&", "c", "==", "d", "||", "!", "e")),
+                Arguments.of("Other Symbols", "(;)+\u00e9", Arrays.asList("(", ";", ")", "+", "\u00e9"))
+        );
+    }
+
+    @Test
+    void testUnterminated() {
+        for (Lexer.Engine engine : Lexer.Engine.values()) {
+            ParseException exception = Assertions.assertThrows(ParseException.class,
+                    () -> new Lexer("f(..)", engine, STRICT).lex());
+            Assertions.assertEquals("Parse exception: unterminated ...", exception.getMessage());
+            Assertions.assertEquals(4, exception.getIndex());
+            exception = Assertions.assertThrows(ParseException.class,
+                    () -> new Lexer("a & b", engine, DIALECT).lex());
+            Assertions.assertEquals("Parse exception: unterminated &&", exception.getMessage());
+            Assertions.assertEquals(3, exception.getIndex());
+        }
+    }
+
+    @Test
+    void testRecovering() {
+        LexResult result = new Lexer("a.. b <= c & d", Lexer.Engine.PATTERN, STRICT).lexRecovering();
+        List<String> literals = new ArrayList<>();
+        for (Token token : result.getTokens()) {
+            literals.add(token.getLiteral());
+        }
+        Assertions.assertEquals(Arrays.asList("a", "b", "<=", "c", "d"), literals);
+        Assertions.assertEquals(2, result.getErrors().size());
+        Assertions.assertEquals(3, result.getErrors().get(0).getIndex());
+        Assertions.assertEquals(12, result.getErrors().get(1).getIndex());
+    }
+
+    /**
+     * The default operators given explicitly go through the operator trie
+     * instead of the built in table, and should lex exactly the same.
+     */
+    @Test
+    void testDefaultEquivalent() {
+        OperatorTable explicit = OperatorTable.of("!", "!=", "=", "==", "&&", "||");
+        String alphabet = "a_-09 1.\"'\\n\n\r\t!=&|<;(\u00e9";
+        Random random = new Random(0);
+        for (int test = 0; test < 5000; test++) {
+            StringBuilder input = new StringBuilder();
+            for (int i = random.nextInt(16); i > 0; i--) {
+                input.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            for (Lexer.Engine engine : Lexer.Engine.values()) {
+                String expected = lex(new Lexer(input.toString(), engine));
+                Assertions.assertEquals(expected, lex(new Lexer(input.toString(), engine, explicit)));
+                Lexer.CharStream chars = new Lexer.CharStream(new StringReader(input.toString()), 2);
+                Assertions.assertEquals(expected, lex(new Lexer(chars, engine, null, explicit)));
+            }
+        }
+    }
+
+    /**
+     * Adding a longer operator keeps its first char a single char operator
+     * if it was one before.
+     */
+    @Test
+    void testWithKeepsPrefix() {
+        for (Lexer.Engine engine : Lexer.Engine.values()) {
+            Assertions.assertEquals(new Lexer("x - y").lex(), new Lexer("x - y", engine, OperatorTable.DEFAULT.with("->")).lex());
+            Assertions.assertEquals(new Lexer("a < b").lex(), new Lexer("a < b", engine, OperatorTable.DEFAULT.with("<=")).lex());
+            Assertions.assertEquals("<=", new Lexer("a <= b", engine, OperatorTable.DEFAULT.with("<=")).lex().get(1).getLiteral());
+            ParseException exception = Assertions.assertThrows(ParseException.class,
+                    () -> new Lexer("a & b", engine, OperatorTable.DEFAULT.with("&=")).lex());
+            Assertions.assertEquals(3, exception.getIndex());
+        }
+    }
+
+    @Test
+    void testInvalid() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> OperatorTable.of("<", ""));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> OperatorTable.of("a+"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> OperatorTable.of("+1"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> OperatorTable.of("\"+"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> OperatorTable.of("< ="));
+    }
+
+    private static String lex(Lexer lexer) {
+        try {
+            return lexer.lex().toString();
+        } catch (ParseException e) {
+            return e.getIndex() + ": " + e.getMessage();
+        }
+    }
+
+}
@@ -0,0 +1,50 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+public class ParallelLexerTests {
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    @ParameterizedTest
+    @MethodSource
+    void testMatchesSequential(String test, String input) {
+        //tiny chunks put boundaries inside strings and characters
+        for (int chunk = 1; chunk <= 8; chunk++) {
+            assertSameResult(input, new ParallelLexer(POOL, chunk));
+        }
+    }
+
+    private static Stream<Arguments> testMatchesSequential() {
+        return Stream.of(
+                Arguments.of("Example", "while(x < 5) {x = x + 1;}\nprint(x);"),
+                Arguments.of("Strings With Spaces", "a \"b c d\" e \"f \t\n g\" h ' ' i"),
+                Arguments.of("Quote In String", "x \" \\\"\" y \" z \""),
+                Arguments.of("Late Error", "LET x = 1;\nLET y = \"unterminated"),
+                Arguments.of("Speculative Error", "\"  & | 01 ' \" x y z w"),
+                Arguments.of("Leading Whitespace", "   \n\n  a  b  "),
+                Arguments.of("No Whitespace", "abc+defgh*ijk;\"s\"+'c'&&x!=4.5;f(a,b)")
+        );
+    }
+
+    private static void assertSameResult(String input, ParallelLexer lexer) {
+        List<Token> expected;
+        try {
+            expected = new Lexer(input).lex();
+        } catch (ParseException e) {
+            ParseException exception = Assertions.assertThrows(ParseException.class, () -> lexer.lex(input));
+            Assertions.assertEquals(e.getMessage(), exception.getMessage());
+            Assertions.assertEquals(e.getIndex(), exception.getIndex());
+            return;
+        }
+        Assertions.assertEquals(expected, lexer.lex(input));
+    }
+
+}
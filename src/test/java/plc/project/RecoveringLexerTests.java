@@ -0,0 +1,79 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class RecoveringLexerTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testRecovery(String test, String input, List<Token> tokens, List<Integer> errors) {
+        LexResult result = new Lexer(input).lexRecovering();
+        Assertions.assertEquals(tokens, result.getTokens());
+        Assertions.assertEquals(errors, result.getErrors().stream()
+                .map(ParseException::getIndex)
+                .collect(Collectors.toList()));
+    }
+
+    private static Stream<Arguments> testRecovery() {
+        return Stream.of(
+                Arguments.of("Leading Zeros", "x 00224 y", Arrays.asList(
+                        new Token(Token.Type.IDENTIFIER, "x", 0),
+                        new Token(Token.Type.IDENTIFIER, "y", 8)
+                ), Arrays.asList(3)),
+                Arguments.of("Unterminated String", "x = \"abc\ny;", Arrays.asList(
+                        new Token(Token.Type.IDENTIFIER, "x", 0),
+                        new Token(Token.Type.OPERATOR, "=", 2),
+                        new Token(Token.Type.IDENTIFIER, "y", 9),
+                        new Token(Token.Type.OPERATOR, ";", 10)
+                ), Arrays.asList(8)),
+                Arguments.of("Invalid Escape", "\"a\\qb\" c", Arrays.asList(
+                        new Token(Token.Type.STRING, "\"a\\qb\"", 0),
+                        new Token(Token.Type.IDENTIFIER, "c", 7)
+                ), Arrays.asList(3)),
+                Arguments.of("Bad Characters", "'' 'ab' '\\q' z", Arrays.asList(
+                        new Token(Token.Type.IDENTIFIER, "z", 13)
+                ), Arrays.asList(1, 5, 10)),
+                Arguments.of("Lone And Or", "a & b | c", Arrays.asList(
+                        new Token(Token.Type.IDENTIFIER, "a", 0),
+                        new Token(Token.Type.IDENTIFIER, "b", 4),
+                        new Token(Token.Type.IDENTIFIER, "c", 8)
+                ), Arrays.asList(3, 7)),
+                Arguments.of("Unterminated At End", "x \"abc", Arrays.asList(
+                        new Token(Token.Type.IDENTIFIER, "x", 0)
+                ), Arrays.asList(6))
+        );
+    }
+
+    @Test
+    void testFirstErrorMatchesLex() {
+        String input = "LET x = 1.;\nLET y = 01;";
+        ParseException exception = Assertions.assertThrows(ParseException.class, () -> new Lexer(input).lex());
+        ParseException first = new Lexer(input).lexRecovering().getErrors().get(0);
+        Assertions.assertEquals(exception.getMessage(), first.getMessage());
+        Assertions.assertEquals(exception.getIndex(), first.getIndex());
+        Assertions.assertEquals(0, first.getStackTrace().length);
+    }
+
+    @Test
+    void testResetAfterRecovery() {
+        for (Lexer.Engine engine : Lexer.Engine.values()) {
+            Lexer lexer = new Lexer("a & b", engine);
+            LexResult result = lexer.lexRecovering();
+            Assertions.assertEquals(1, result.getErrors().size());
+            lexer.reset("c & d");
+            ParseException exception = Assertions.assertThrows(ParseException.class, lexer::lex);
+            Assertions.assertEquals(3, exception.getIndex());
+            Assertions.assertEquals(1, result.getErrors().size());
+        }
+    }
+
+}
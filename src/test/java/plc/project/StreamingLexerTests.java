@@ -0,0 +1,74 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class StreamingLexerTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testSmallBuffer(String test, String input, Lexer.Engine engine) {
+        //a buffer of a few chars forces refills in the middle of most tokens
+        for (int capacity = 1; capacity <= 4; capacity++) {
+            Lexer.CharStream chars = new Lexer.CharStream(new StringReader(input), capacity);
+            Assertions.assertEquals(new Lexer(input).lex(), new Lexer(chars, engine).lex());
+        }
+    }
+
+    private static Stream<Arguments> testSmallBuffer() {
+        return Stream.of(
+                Arguments.of("Pattern", "LET name = \"a long string literal\";", Lexer.Engine.PATTERN),
+                Arguments.of("Table", "LET name = \"a long string literal\";", Lexer.Engine.TABLE),
+                Arguments.of("Numbers", "123.456 -7.5 0 'c' != x", Lexer.Engine.TABLE)
+        );
+    }
+
+    @Test
+    void testStream() {
+        String input = "while(x < 5) {x = x + 1;}";
+        List<Token> streamed = new Lexer(new StringReader(input), Lexer.Engine.TABLE).stream()
+                .collect(Collectors.toList());
+        Assertions.assertEquals(new Lexer(input).lex(), streamed);
+    }
+
+    @Test
+    void testMappedFile() throws IOException {
+        String input = "LET caf\u00e9 = \"\u00fcber \uD83D\uDE00\"; x != 1.5";
+        Path path = Files.createTempFile("lexer", ".txt");
+        try {
+            Files.write(path, input.getBytes(StandardCharsets.UTF_8));
+            Assertions.assertEquals(new Lexer(input).lex(), Lexer.lexFile(path, Lexer.Engine.TABLE));
+            //tiny regions split the multi byte sequences between mappings
+            try (FileChannel channel = FileChannel.open(path)) {
+                Lexer.CharStream chars = new Lexer.CharStream(new MappedFileReader(channel, 5), 1);
+                Assertions.assertEquals(new Lexer(input).lex(), new Lexer(chars, Lexer.Engine.TABLE).lex());
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testLazyException() {
+        Iterator<Token> tokens = new Lexer(new StringReader("x y \"unterminated"), Lexer.Engine.TABLE).iterator();
+        Assertions.assertEquals(new Token(Token.Type.IDENTIFIER, "x", 0), tokens.next());
+        Assertions.assertEquals(new Token(Token.Type.IDENTIFIER, "y", 2), tokens.next());
+        ParseException exception = Assertions.assertThrows(ParseException.class, tokens::next);
+        Assertions.assertEquals(17, exception.getIndex());
+    }
+
+}
@@ -0,0 +1,45 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class SymbolTableTests {
+
+    @Test
+    void testInterning() {
+        for (Lexer.Engine engine : Lexer.Engine.values()) {
+            SymbolTable symbols = new SymbolTable();
+            List<Token> tokens = new Lexer("x = x + \"x\" + 1;", engine, symbols).lex();
+            Assertions.assertEquals(new Lexer("x = x + \"x\" + 1;").lex(), tokens);
+            Assertions.assertSame(tokens.get(0).getLiteral(), tokens.get(2).getLiteral());
+            Assertions.assertEquals(tokens.get(0).getSymbol(), tokens.get(2).getSymbol());
+            Assertions.assertEquals(tokens.get(3).getSymbol(), tokens.get(5).getSymbol());
+            Assertions.assertEquals(-1, tokens.get(4).getSymbol());
+            Assertions.assertEquals(-1, tokens.get(6).getSymbol());
+            Assertions.assertEquals(4, symbols.size());
+        }
+    }
+
+    @Test
+    void testSharedTable() throws InterruptedException {
+        SymbolTable symbols = SymbolTable.synchronizedTable();
+        int let = symbols.intern("LET");
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 100; j++) {
+                    new Lexer("LET name" + j + " = 1;", Lexer.Engine.TABLE, symbols).lex();
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assertions.assertEquals("LET", symbols.symbol(let));
+        Assertions.assertEquals(103, symbols.size());
+    }
+
+}
@@ -0,0 +1,63 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.stream.Stream;
+
+public class TableLexerTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testMatchesPattern(String test, String input) {
+        assertSameResult(input);
+    }
+
+    private static Stream<Arguments> testMatchesPattern() {
+        return Stream.of(
+                Arguments.of("Example", "LET x = 5;"),
+                Arguments.of("Identifiers", "a-b-c the_legend @x y@z"),
+                Arguments.of("Numbers", "1 -1 0 0.0 123.456 -1.0 - 5"),
+                Arguments.of("Trailing Zero", "10 100"),
+                Arguments.of("Characters", "'c' '\\n' ' '"),
+                Arguments.of("Strings", "\"\" \"abc\" \"Hello,\\nWorld\" \"\t\n\""),
+                Arguments.of("Operators", "!= == && || ! = ( $ + . @"),
+                Arguments.of("Empty", ""),
+                Arguments.of("Leading Zeros", "00224"),
+                Arguments.of("Trailing Decimal", "1."),
+                Arguments.of("Empty Character", "''"),
+                Arguments.of("Unterminated Character", "'u"),
+                Arguments.of("Invalid Character Escape", "'\\q'"),
+                Arguments.of("Unterminated String", "\"unterminated"),
+                Arguments.of("Newline String", "\"unterminated\n\""),
+                Arguments.of("Invalid String Escape", "\"invalid\\escape\""),
+                Arguments.of("Unterminated And", "a & b"),
+                Arguments.of("Unterminated Or", "a |")
+        );
+    }
+
+    /**
+     * Asserts that both engines produce the same tokens, or throw a {@link
+     * ParseException} with the same message and index.
+     */
+    private static void assertSameResult(String input) {
+        ParseException expectedException = null;
+        Object expected = null;
+        try {
+            expected = new Lexer(input, Lexer.Engine.PATTERN).lex();
+        } catch (ParseException e) {
+            expectedException = e;
+        }
+        if (expectedException == null) {
+            Assertions.assertEquals(expected, new Lexer(input, Lexer.Engine.TABLE).lex());
+        } else {
+            ParseException exception = Assertions.assertThrows(ParseException.class,
+                    () -> new Lexer(input, Lexer.Engine.TABLE).lex());
+            Assertions.assertEquals(expectedException.getMessage(), exception.getMessage());
+            Assertions.assertEquals(expectedException.getIndex(), exception.getIndex());
+        }
+    }
+
+}
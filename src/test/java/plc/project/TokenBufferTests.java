@@ -0,0 +1,32 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class TokenBufferTests {
+
+    @Test
+    void testListView() {
+        String input = "print(\"Hello, World!\"); x != 1.5";
+        Assertions.assertEquals(new Lexer(input).lex(), Lexer.lexBuffer(input));
+    }
+
+    @Test
+    void testColumns() {
+        TokenBuffer tokens = Lexer.lexBuffer("LET x = 'c';");
+        Assertions.assertEquals(5, tokens.size());
+        Assertions.assertEquals(Token.Type.CHARACTER, tokens.getType(3));
+        Assertions.assertEquals(8, tokens.getIndex(3));
+        Assertions.assertEquals(3, tokens.getLength(3));
+        Assertions.assertEquals("'c'", tokens.getLiteral(3));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> tokens.getType(5));
+    }
+
+    @Test
+    void testException() {
+        ParseException exception = Assertions.assertThrows(ParseException.class,
+                () -> Lexer.lexBuffer("x = 00224"));
+        Assertions.assertEquals(5, exception.getIndex());
+    }
+
+}
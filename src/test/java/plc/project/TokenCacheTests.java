@@ -0,0 +1,87 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class TokenCacheTests {
+
+    @Test
+    void testHit() {
+        TokenCache cache = new TokenCache(1 << 20);
+        TokenBuffer first = cache.lex("LET x = 5;");
+        Assertions.assertEquals(new Lexer("LET x = 5;").lex(), first);
+        Assertions.assertSame(first, cache.lex(new String("LET x = 5;".toCharArray())));
+        Assertions.assertEquals(new Lexer("LET x = 6;").lex(), cache.lex("LET x = 6;"));
+        Assertions.assertEquals(1, cache.getHits());
+        Assertions.assertEquals(2, cache.getMisses());
+        Assertions.assertEquals(2, cache.size());
+        Assertions.assertEquals(1.0 / 3, cache.getHitRate(), 1e-9);
+    }
+
+    @Test
+    void testException() {
+        TokenCache cache = new TokenCache(1 << 20);
+        Assertions.assertThrows(ParseException.class, () -> cache.lex("\"unterminated"));
+        Assertions.assertThrows(ParseException.class, () -> cache.lex("\"unterminated"));
+        Assertions.assertEquals(0, cache.size());
+        Assertions.assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    void testTrimmed() {
+        TokenCache cache = new TokenCache(1 << 20);
+        String input = new String(new char[4000]).replace('\0', 'a');
+        TokenBuffer tokens = cache.lex(input);
+        Assertions.assertEquals(1, tokens.capacity());
+        Assertions.assertEquals(64 + 2 * 4000 + 9, cache.getBytes());
+        Assertions.assertEquals(new Lexer(input).lex(), tokens);
+    }
+
+    @Test
+    void testEviction() {
+        TokenCache cache = new TokenCache(16 * 1024);
+        for (int i = 0; i < 1000; i++) {
+            cache.lex("x" + i + " = y;");
+        }
+        Assertions.assertTrue(cache.getBytes() <= 16 * 1024);
+        Assertions.assertTrue(cache.getEvictions() > 0);
+        Assertions.assertEquals(1000 - cache.getEvictions(), cache.size());
+        String large = new String(new char[16 * 1024]).replace('\0', 'a');
+        cache.lex(large);
+        Assertions.assertNotSame(cache.lex(large), cache.lex(large));
+    }
+
+    @Test
+    void testConcurrent() throws Exception {
+        TokenCache cache = new TokenCache(1 << 20);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> {
+                    for (int j = 0; j < 1000; j++) {
+                        String input = "print(" + (j % 50) + ", \"s\");";
+                        if (!new Lexer(input).lex().equals(cache.lex(input))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                Assertions.assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Assertions.assertEquals(8000, cache.getHits() + cache.getMisses());
+        Assertions.assertEquals(50, cache.size());
+    }
+
+}
@@ -0,0 +1,150 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+public class TokenFileTests {
+
+    @Test
+    void testRoundTrip() throws IOException {
+        String input = "LET x = 5;\nprint(\"Hello,\\nWorld!\", 'c', -1.5, x != y);\n  LET x = x + \u00e9\uD83D\uDE00;";
+        List<Token> expected = new Lexer(input).lex();
+        Path path = Files.createTempFile("tokens", ".bin");
+        try {
+            TokenFile.write(path, input, expected);
+            TokenFile file = TokenFile.read(path);
+            Assertions.assertEquals(expected, file);
+            Assertions.assertTrue(file.matches(input));
+            Assertions.assertFalse(file.matches(input.replace('5', '6')));
+            Assertions.assertEquals(3, file.getLength(0));
+            Assertions.assertEquals(Token.Type.STRING, file.getType(7));
+            Assertions.assertEquals(new Lexer(input).lex().get(7).getIndex(), file.getIndex(7));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testEmpty() throws IOException {
+        Path path = Files.createTempFile("tokens", ".bin");
+        try {
+            TokenFile.write(path, "   ", new Lexer("   ").lex());
+            Assertions.assertEquals(0, TokenFile.read(path).size());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testCorrupt() throws IOException {
+        Path path = Files.createTempFile("tokens", ".bin");
+        try {
+            TokenFile.write(path, "x = y;", new Lexer("x = y;").lex());
+            byte[] bytes = Files.readAllBytes(path);
+            bytes[bytes.length - 6] ^= 1;
+            Files.write(path, bytes);
+            Assertions.assertThrows(IOException.class, () -> TokenFile.read(path));
+            Files.write(path, new byte[] {1, 2, 3});
+            Assertions.assertThrows(IOException.class, () -> TokenFile.read(path));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testBlocks() throws IOException {
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            source.append("LET x").append(i).append(" = \"").append(i % 7).append("\";\n");
+        }
+        List<Token> expected = new Lexer(source.toString()).lex();
+        Path path = Files.createTempFile("tokens", ".bin");
+        try {
+            TokenFile.write(path, source.toString(), expected);
+            TokenFile file = TokenFile.read(path);
+            Assertions.assertEquals(expected.size(), file.size());
+            for (int i = expected.size() - 1; i >= 0; i -= 37) {
+                Assertions.assertEquals(expected.get(i), file.get(i));
+            }
+            Assertions.assertEquals(expected, file);
+            Assertions.assertThrows(IndexOutOfBoundsException.class, () -> file.get(expected.size()));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    /**
+     * A file for another source with the same length and hash still isn't
+     * used, which is forged here by rewriting the header.
+     */
+    @Test
+    void testHashCollision() throws IOException {
+        Path path = Files.createTempFile("tokens", ".bin");
+        try {
+            TokenFile.write(path, "x = y;", new Lexer("x = y;").lex());
+            ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(path));
+            bytes.putLong(8, TokenCache.hash("y = x;"));
+            CRC32 crc = new CRC32();
+            crc.update(bytes.array(), 0, bytes.capacity() - 4);
+            bytes.putInt(bytes.capacity() - 4, (int) crc.getValue());
+            Files.write(path, bytes.array());
+            TokenFile file = TokenFile.read(path);
+            Assertions.assertEquals(TokenCache.hash("y = x;"), file.getSourceHash());
+            Assertions.assertFalse(file.matches("y = x;"));
+            Assertions.assertEquals(new Lexer("y = x;").lex(), TokenFile.load(path, "y = x;"));
+            Assertions.assertTrue(TokenFile.read(path).matches("y = x;"));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testLoad() throws IOException {
+        Path path = Files.createTempFile("tokens", ".bin");
+        try {
+            Files.delete(path);
+            List<Token> first = TokenFile.load(path, "while(x < 5) {x = x + 1;}");
+            Assertions.assertTrue(first instanceof TokenBuffer);
+            List<Token> second = TokenFile.load(path, "while(x < 5) {x = x + 1;}");
+            Assertions.assertTrue(second instanceof TokenFile);
+            Assertions.assertEquals(first, second);
+            List<Token> edited = TokenFile.load(path, "while(x < 6) {x = x + 1;}");
+            Assertions.assertTrue(edited instanceof TokenBuffer);
+            Assertions.assertEquals(new Lexer("while(x < 6) {x = x + 1;}").lex(), edited);
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    /**
+     * Literals are decoded from the mapping as they are asked for, so writing
+     * over the file in place would change or cut off what it reads.
+     */
+    @Test
+    void testWriteWhileMapped() throws IOException {
+        Path path = Files.createTempFile("tokens", ".bin");
+        try {
+            String source = "while(x < 5) {x = x + 1;} LET y = \"string\";";
+            TokenFile.write(path, source, new Lexer(source).lex());
+            TokenFile mapped = TokenFile.read(path);
+            TokenFile.write(path, "z", new Lexer("z").lex());
+            Assertions.assertEquals(new Lexer(source).lex(), mapped);
+            Assertions.assertEquals(new Lexer("z").lex(), TokenFile.read(path));
+            try (Stream<Path> files = Files.list(path.getParent())) {
+                String prefix = path.getFileName() + ".";
+                Assertions.assertEquals(0, files.filter(file -> file.getFileName().toString().startsWith(prefix)).count());
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+}
@@ -0,0 +1,152 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class TokenPublisherTests {
+
+    @Test
+    void testOneAtATime() {
+        String input = "while(x < 5) {x = x + 1;}";
+        Collector collector = new Collector(1);
+        new Lexer(input).publisher().subscribe(collector);
+        Assertions.assertEquals(new Lexer(input).lex(), collector.tokens);
+        Assertions.assertTrue(collector.completed);
+        Assertions.assertNull(collector.error);
+    }
+
+    @Test
+    void testDemand() {
+        Collector collector = new Collector(0);
+        new Lexer("a b c d \"unterminated").publisher().subscribe(collector);
+        collector.subscription.request(2);
+        Assertions.assertEquals(2, collector.tokens.size());
+        Assertions.assertNull(collector.error);
+        collector.subscription.request(2);
+        Assertions.assertEquals(4, collector.tokens.size());
+        Assertions.assertFalse(collector.completed);
+        collector.subscription.request(1);
+        Assertions.assertEquals(4, collector.tokens.size());
+        Assertions.assertTrue(collector.error instanceof ParseException);
+        Assertions.assertEquals(21, ((ParseException) collector.error).getIndex());
+    }
+
+    @Test
+    void testExactDemandCompletes() {
+        Collector collector = new Collector(0);
+        new Lexer("LET x = 5;", Lexer.Engine.TABLE).publisher().subscribe(collector);
+        collector.subscription.request(5);
+        Assertions.assertEquals(5, collector.tokens.size());
+        Assertions.assertTrue(collector.completed);
+    }
+
+    @Test
+    void testUnbounded() {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            input.append("x").append(i % 9 + 1).append(" = y;\n");
+        }
+        Collector collector = new Collector(0);
+        new Lexer(input.toString()).publisher().subscribe(collector);
+        collector.subscription.request(Long.MAX_VALUE);
+        Assertions.assertEquals(4000, collector.tokens.size());
+        Assertions.assertTrue(collector.completed);
+    }
+
+    @Test
+    void testCancelAndInvalid() {
+        Collector collector = new Collector(0);
+        new Lexer("a b c").publisher().subscribe(collector);
+        collector.subscription.request(1);
+        collector.subscription.cancel();
+        collector.subscription.request(5);
+        Assertions.assertEquals(1, collector.tokens.size());
+        Assertions.assertFalse(collector.completed);
+        Collector invalid = new Collector(0);
+        new Lexer("a b c").publisher().subscribe(invalid);
+        invalid.subscription.request(0);
+        Assertions.assertTrue(invalid.error instanceof IllegalArgumentException);
+    }
+
+    @Test
+    void testSecondSubscriber() {
+        TokenPublisher publisher = new Lexer("a b c").publisher();
+        publisher.subscribe(new Collector(0));
+        Collector second = new Collector(0);
+        publisher.subscribe(second);
+        Assertions.assertTrue(second.error instanceof IllegalStateException);
+    }
+
+    @Test
+    void testExecutor() throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            String input = "print(\"Hello, World!\"); LET x = 'c';";
+            CountDownLatch done = new CountDownLatch(1);
+            Collector collector = new Collector(3) {
+                @Override
+                public void onComplete() {
+                    super.onComplete();
+                    done.countDown();
+                }
+            };
+            new Lexer(input).publisher(executor).subscribe(collector);
+            Assertions.assertTrue(done.await(10, TimeUnit.SECONDS));
+            Assertions.assertEquals(new Lexer(input).lex(), collector.tokens);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Requests the given number of tokens up front and again after each
+     * batch, or nothing if it's 0 so the test drives requests itself.
+     */
+    private static class Collector implements TokenPublisher.Subscriber<Token> {
+
+        private final int batch;
+        private final List<Token> tokens = new ArrayList<>();
+        private TokenPublisher.Subscription subscription;
+        private volatile boolean completed = false;
+        private volatile Throwable error;
+
+        private Collector(int batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public void onSubscribe(TokenPublisher.Subscription subscription) {
+            this.subscription = subscription;
+            if (batch > 0) {
+                subscription.request(batch);
+            }
+        }
+
+        @Override
+        public void onNext(Token item) {
+            tokens.add(item);
+            if (batch > 0 && tokens.size() % batch == 0) {
+                subscription.request(batch);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+
+    }
+
+}
@@ -0,0 +1,106 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+public class TokenStreamTests {
+
+    private static final String INPUT = "LET x = f(1, \"two\", '3') && y != 4.5;";
+
+    @Test
+    void testPeekAdvance() {
+        for (Lexer.Engine engine : Lexer.Engine.values()) {
+            List<Token> expected = new Lexer(INPUT, engine).lex();
+            TokenStream tokens = new Lexer(INPUT, engine).tokens(3);
+            List<Token> actual = new ArrayList<>();
+            while (tokens.hasNext()) {
+                for (int k = 0; k < 3; k++) {
+                    int index = actual.size() + k;
+                    Assertions.assertEquals(index < expected.size() ? expected.get(index) : null, tokens.peek(k));
+                }
+                actual.add(tokens.advance());
+            }
+            Assertions.assertEquals(expected, actual);
+            Assertions.assertNull(tokens.peek());
+            Assertions.assertThrows(NoSuchElementException.class, tokens::advance);
+            Assertions.assertThrows(IllegalArgumentException.class, () -> tokens.peek(3));
+        }
+    }
+
+    @Test
+    void testMarkReset() {
+        List<Token> expected = new Lexer(INPUT).lex();
+        TokenStream tokens = new Lexer(INPUT).tokens(1);
+        tokens.advance();
+        tokens.mark();
+        for (int i = 1; i < 10; i++) {
+            Assertions.assertEquals(expected.get(i), tokens.advance());
+        }
+        tokens.mark();
+        tokens.advance();
+        tokens.reset();
+        Assertions.assertEquals(10, tokens.position());
+        tokens.reset();
+        Assertions.assertEquals(1, tokens.position());
+        Assertions.assertThrows(IllegalStateException.class, tokens::reset);
+        tokens.mark();
+        for (int i = 1; i < 5; i++) {
+            Assertions.assertEquals(expected.get(i), tokens.advance());
+        }
+        tokens.release();
+        Assertions.assertEquals(expected.get(5), tokens.peek());
+        List<Token> rest = new ArrayList<>();
+        while (tokens.hasNext()) {
+            rest.add(tokens.advance());
+        }
+        Assertions.assertEquals(expected.subList(5, expected.size()), rest);
+    }
+
+    @Test
+    void testError() {
+        TokenStream tokens = new Lexer("a b &", Lexer.Engine.TABLE).tokens(2);
+        Assertions.assertEquals("a", tokens.peek().getLiteral());
+        tokens.mark();
+        tokens.advance();
+        ParseException exception = Assertions.assertThrows(ParseException.class, () -> tokens.peek(1));
+        Assertions.assertEquals(5, exception.getIndex());
+        Assertions.assertEquals("b", tokens.advance().getLiteral());
+        Assertions.assertSame(exception, Assertions.assertThrows(ParseException.class, tokens::peek));
+        tokens.reset();
+        Assertions.assertEquals("a", tokens.advance().getLiteral());
+    }
+
+    /**
+     * The input never ends, so this only finishes if tokens are lexed as
+     * they are needed and the buffer doesn't keep consumed tokens.
+     */
+    @Test
+    void testLazy() {
+        Reader endless = new Reader() {
+
+            @Override
+            public int read(char[] buffer, int offset, int length) {
+                for (int i = 0; i < length; i++) {
+                    buffer[offset + i] = i % 2 == 0 ? 'x' : ' ';
+                }
+                return length;
+            }
+
+            @Override
+            public void close() {}
+
+        };
+        TokenStream tokens = new Lexer(new Lexer.CharStream(endless, 64), Lexer.Engine.PATTERN).tokens(2);
+        for (int i = 0; i < 100000; i++) {
+            Assertions.assertEquals("x", tokens.peek(1).getLiteral());
+            tokens.advance();
+        }
+        Assertions.assertEquals(100000, tokens.position());
+    }
+
+}
@@ -0,0 +1,204 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+public class TokenValueTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testInteger(String test, String input, Object expected) {
+        test(Token.Type.INTEGER, input, expected);
+    }
+
+    private static Stream<Arguments> testInteger() {
+        return Stream.of(
+                Arguments.of("Single Digit", "1", 1L),
+                Arguments.of("Zero", "0", 0L),
+                Arguments.of("Negative", "-987", -987L),
+                Arguments.of("Long", "-999999999999999999", -999999999999999999L),
+                Arguments.of("Over Long", "9999999999999999999", new BigInteger("9999999999999999999")),
+                Arguments.of("Huge", "12345678912345678912345678", new BigInteger("12345678912345678912345678"))
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testLongBounds(String test, String literal, Object expected) {
+        Assertions.assertEquals(expected, new Token(Token.Type.INTEGER, literal, 0).getValue());
+    }
+
+    private static Stream<Arguments> testLongBounds() {
+        return Stream.of(
+                Arguments.of("Max Long", "9223372036854775807", Long.MAX_VALUE),
+                Arguments.of("Min Long", "-9223372036854775808", Long.MIN_VALUE),
+                Arguments.of("Over Max Long", "9223372036854775808", new BigInteger("9223372036854775808")),
+                Arguments.of("Under Min Long", "-9223372036854775809", new BigInteger("-9223372036854775809")),
+                Arguments.of("Not A Number", "-", null)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testDecimal(String test, String input, Object expected) {
+        test(Token.Type.DECIMAL, input, expected);
+    }
+
+    private static Stream<Arguments> testDecimal() {
+        return Stream.of(
+                Arguments.of("Zero", "0.0", new BigDecimal("0.0")),
+                Arguments.of("Multiple Digits", "123.456", new BigDecimal("123.456")),
+                Arguments.of("Trailing Zeros", "1.500", new BigDecimal("1.500")),
+                Arguments.of("Negative", "-1.25", new BigDecimal("-1.25")),
+                Arguments.of("Huge", "98765432198765432198.123456789", new BigDecimal("98765432198765432198.123456789"))
+        );
+    }
+
+    /**
+     * Values are built while the digits are scanned, including across
+     * refills of a small buffer, and match parsing the literal.
+     */
+    @Test
+    void testScannedNumbers() {
+        Random random = new Random(0);
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            if (random.nextBoolean()) {
+                input.append('-');
+            }
+            for (int digits = random.nextInt(25); digits >= 0; digits--) {
+                input.append((char) ('1' + random.nextInt(9)));
+            }
+            if (random.nextBoolean()) {
+                input.append('.');
+                for (int digits = random.nextInt(25); digits >= 0; digits--) {
+                    input.append((char) ('0' + random.nextInt(10)));
+                }
+            }
+            input.append(' ');
+        }
+        for (Lexer.Engine engine : Lexer.Engine.values()) {
+            Lexer.CharStream chars = new Lexer.CharStream(new StringReader(input.toString()), 16);
+            List<Token> tokens = new Lexer(chars, engine).lex();
+            Assertions.assertEquals(500, tokens.size());
+            for (Token token : tokens) {
+                Object expected = token.getType() == Token.Type.INTEGER
+                        ? new BigInteger(token.getLiteral())
+                        : new BigDecimal(token.getLiteral());
+                Object value = token.getValue();
+                if (value instanceof Long) {
+                    value = BigInteger.valueOf((Long) value);
+                }
+                Assertions.assertEquals(expected, value, token.getLiteral());
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testString(String test, String input, String expected) {
+        for (Lexer.Engine engine : Lexer.Engine.values()) {
+            Token token = new Lexer(input, engine).lex().get(0);
+            Assertions.assertEquals(Token.Type.STRING, token.getType());
+            Assertions.assertEquals(expected, token.getValue().toString());
+        }
+    }
+
+    private static Stream<Arguments> testString() {
+        return Stream.of(
+                Arguments.of("Empty", "\"\"", ""),
+                Arguments.of("Alphabetic", "\"abc\"", "abc"),
+                Arguments.of("Newline Escape", "\"Hello,\\nWorld\"", "Hello,\nWorld"),
+                Arguments.of("All Escapes", "\"\\b\\n\\r\\t\"", "\b\n\r\t"),
+                Arguments.of("Trailing Escape", "\"tab\\t\"", "tab\t"),
+                Arguments.of("Raw Tab", "\"a\tb\"", "a\tb")
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testCharacter(String test, String input, char expected) {
+        for (Lexer.Engine engine : Lexer.Engine.values()) {
+            Token token = new Lexer(input, engine).lex().get(0);
+            Assertions.assertEquals(Token.Type.CHARACTER, token.getType());
+            Assertions.assertEquals(expected, token.getValue());
+        }
+    }
+
+    private static Stream<Arguments> testCharacter() {
+        return Stream.of(
+                Arguments.of("Alphabetic", "'c'", 'c'),
+                Arguments.of("Newline Escape", "'\\n'", '\n'),
+                Arguments.of("Backspace Escape", "'\\b'", '\b')
+        );
+    }
+
+    @Test
+    void testZeroCopy() {
+        Token token = new Lexer("\"Hello, World!\"").lex().get(0);
+        CharSequence value = (CharSequence) token.getValue();
+        Assertions.assertFalse(value instanceof String);
+        Assertions.assertEquals("World", value.subSequence(7, 12).toString());
+        Assertions.assertTrue("Hello, World!".contentEquals(value));
+        Assertions.assertNull(new Token(Token.Type.IDENTIFIER, "x", 0).getValue());
+        Assertions.assertSame(value, token.getValue());
+    }
+
+    /**
+     * Escapes are decoded as the string is scanned, including across refills
+     * of a small buffer, and every string value is the same type whether it
+     * had escapes or not.
+     */
+    @Test
+    void testScannedStrings() {
+        String input = "\"plain\" \"a\\tb\\nc\" \"\\r\" \"long string with an escape at the end\\b\" 'x' '\\t'";
+        for (Lexer.Engine engine : Lexer.Engine.values()) {
+            Lexer.CharStream chars = new Lexer.CharStream(new StringReader(input), 4);
+            List<Token> tokens = new Lexer(chars, engine).lex();
+            List<Token> whole = new Lexer(input, engine).lex();
+            for (int i = 0; i < 4; i++) {
+                Assertions.assertEquals(CharSlice.class, tokens.get(i).getValue().getClass());
+                Assertions.assertEquals(CharSlice.class, whole.get(i).getValue().getClass());
+                Assertions.assertEquals(new Token(Token.Type.STRING, tokens.get(i).getLiteral(), 0).getValue(), tokens.get(i).getValue());
+                Assertions.assertEquals(tokens.get(i).getValue(), whole.get(i).getValue());
+            }
+            Assertions.assertTrue("a\tb\nc".contentEquals((CharSequence) tokens.get(1).getValue()));
+            Assertions.assertTrue("long string with an escape at the end\b".contentEquals((CharSequence) tokens.get(3).getValue()));
+            Assertions.assertEquals('x', tokens.get(4).getValue());
+            Assertions.assertEquals('\t', tokens.get(5).getValue());
+        }
+        LexResult result = new Lexer("\"a\\qb\\n\"").lexRecovering();
+        Assertions.assertTrue("aqb\n".contentEquals((CharSequence) result.getTokens().get(0).getValue()));
+    }
+
+    @Test
+    void testSliceEquality() {
+        CharSequence slice = new CharSlice("xxabcxx", 2, 5);
+        Assertions.assertEquals(new CharSlice("abc"), slice);
+        Assertions.assertEquals("abc".hashCode(), slice.hashCode());
+        Assertions.assertNotEquals(new CharSlice("abd"), slice);
+        Assertions.assertNotEquals(new CharSlice("ab"), slice);
+        Assertions.assertNotEquals("abc", slice);
+    }
+
+    private static void test(Token.Type type, String input, Object expected) {
+        for (Lexer.Engine engine : Lexer.Engine.values()) {
+            Token token = new Lexer(input, engine).lex().get(0);
+            Assertions.assertEquals(type, token.getType());
+            Assertions.assertEquals(input, token.getLiteral());
+            Assertions.assertEquals(expected, token.getValue());
+        }
+        Assertions.assertEquals(expected, Lexer.lexBuffer(input).get(0).getValue());
+    }
+
+}